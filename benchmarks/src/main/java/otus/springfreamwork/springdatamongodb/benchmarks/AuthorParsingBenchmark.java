@@ -0,0 +1,28 @@
+package otus.springfreamwork.springdatamongodb.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import otus.springfreamwork.springdatamongodb.domain.model.Author;
+import otus.springfreamwork.springdatamongodb.domain.model.Country;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+public class AuthorParsingBenchmark extends BenchmarkDefaults {
+
+    // a row of already seen authors allocates nothing here, a row with several authors still builds its HashSet
+    @Benchmark
+    public Set<Author> authorListParser(ImportData data) {
+        return data.csvBookMapper.parseAuthors(data.authorColumns[data.nextIndex()]);
+    }
+
+    // the split-based parsing the import used before AuthorListParser, kept as a baseline
+    @Benchmark
+    public Set<Author> stringSplit(ImportData data) {
+        return Arrays.stream(data.authorColumns[data.nextIndex()].split(","))
+                .map(authorName -> {
+                    String[] authorData = authorName.trim().split(" ");
+                    return new Author(authorData[0], authorData[1], Country.NONE);
+                }).collect(Collectors.toSet());
+    }
+}
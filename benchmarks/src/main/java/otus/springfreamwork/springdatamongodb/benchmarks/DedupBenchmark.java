@@ -0,0 +1,71 @@
+package otus.springfreamwork.springdatamongodb.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import otus.springfreamwork.springdatamongodb.domain.model.Author;
+import otus.springfreamwork.springdatamongodb.domain.model.Book;
+import otus.springfreamwork.springdatamongodb.domain.model.Genre;
+
+import java.util.HashSet;
+import java.util.Set;
+
+public class DedupBenchmark extends BenchmarkDefaults {
+
+    @State(Scope.Thread)
+    public static class ParsedRows {
+
+        Set<Author>[] authors;
+        Genre[] genres;
+        Book[] books;
+
+        @Setup(Level.Trial)
+        @SuppressWarnings("unchecked")
+        public void parse(ImportData data) {
+            authors = new Set[ImportData.ROWS];
+            genres = new Genre[ImportData.ROWS];
+            books = new Book[ImportData.ROWS];
+            for (int i = 0; i < ImportData.ROWS; i++) {
+                books[i] = data.csvBookMapper.mapBook(data.fieldSets[i]);
+                authors[i] = books[i].getAuthors();
+                genres[i] = books[i].getGenre();
+            }
+        }
+    }
+
+    // the filterDuplicateAuthors step: every row copies its authors, drops the known ones and remembers the rest
+    @Benchmark
+    @OperationsPerInvocation(ImportData.ROWS)
+    public Set<Author> authorSet(ParsedRows rows) {
+        Set<Author> uniqueAuthors = new HashSet<>();
+        for (Set<Author> rowAuthors : rows.authors) {
+            Set<Author> authors = new HashSet<>(rowAuthors);
+            authors.removeAll(uniqueAuthors);
+            uniqueAuthors.addAll(authors);
+        }
+        return uniqueAuthors;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ImportData.ROWS)
+    public Set<Genre> genreSet(ParsedRows rows) {
+        Set<Genre> uniqueGenres = new HashSet<>();
+        for (Genre genre : rows.genres) {
+            uniqueGenres.add(genre);
+        }
+        return uniqueGenres;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ImportData.ROWS)
+    public Set<Book> bookSet(ParsedRows rows) {
+        Set<Book> uniqueBooks = new HashSet<>();
+        for (Book book : rows.books) {
+            uniqueBooks.add(book);
+        }
+        return uniqueBooks;
+    }
+}
@@ -0,0 +1,34 @@
+package otus.springfreamwork.springdatamongodb.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.infra.Blackhole;
+import otus.springfreamwork.springdatamongodb.com.app.batch.MappedCsvItemReader;
+import otus.springfreamwork.springdatamongodb.domain.model.Book;
+
+public class FieldMappingBenchmark extends BenchmarkDefaults {
+
+    @Benchmark
+    public Book fieldSetMapper(ImportData data) {
+        return data.csvBookMapper.mapBook(data.fieldSets[data.nextIndex()]);
+    }
+
+    @Benchmark
+    public Book tokenizeAndMapLine(ImportData data) {
+        return data.csvBookMapper.mapBook(data.tokenizer.tokenize(data.lines[data.nextIndex()]));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ImportData.ROWS)
+    public void mappedReaderBooks(ImportData data, Blackhole blackhole) throws Exception {
+        MappedCsvItemReader<Book> reader = data.openMappedReader(data.csvBookMapper.bookRowMapper());
+        try {
+            Book book;
+            while ((book = reader.read()) != null) {
+                blackhole.consume(book);
+            }
+        } finally {
+            reader.close();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package otus.springfreamwork.springdatamongodb.benchmarks;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.file.transform.DelimitedLineTokenizer;
+import org.springframework.batch.item.file.transform.FieldSet;
+import org.springframework.core.io.FileSystemResource;
+import otus.springfreamwork.springdatamongodb.com.app.batch.CsvBookMapper;
+import otus.springfreamwork.springdatamongodb.com.app.batch.CsvRowMapper;
+import otus.springfreamwork.springdatamongodb.com.app.batch.MappedCsvItemReader;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+@State(Scope.Thread)
+public class ImportData {
+
+    public static final int ROWS = 10_000;
+
+    public final CsvBookMapper csvBookMapper = new CsvBookMapper();
+    public final DelimitedLineTokenizer tokenizer = new DelimitedLineTokenizer(";");
+
+    public String[] lines;
+    public String[] authorColumns;
+    public FieldSet[] fieldSets;
+    public Path file;
+
+    private int next;
+
+    @Setup(Level.Trial)
+    public void generate() throws IOException {
+        tokenizer.setNames(new String[]{"name", "publishedDate", "authors", "genre"});
+        List<String> rows = new SyntheticRows(42, 1_000, 13, 3).rows(ROWS);
+        lines = rows.toArray(new String[0]);
+        authorColumns = new String[ROWS];
+        fieldSets = new FieldSet[ROWS];
+        for (int i = 0; i < ROWS; i++) {
+            fieldSets[i] = tokenizer.tokenize(lines[i]);
+            authorColumns[i] = fieldSets[i].readString("authors");
+        }
+        file = Files.createTempFile("benchmark", ".csv");
+        Files.write(file, rows);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFile() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    public int nextIndex() {
+        int index = next;
+        next = index + 1 == ROWS ? 0 : index + 1;
+        return index;
+    }
+
+    public <T> MappedCsvItemReader<T> openMappedReader(CsvRowMapper<T> rowMapper) {
+        MappedCsvItemReader<T> reader = new MappedCsvItemReader<>(new FileSystemResource(file.toFile()), rowMapper, ';');
+        reader.setSaveState(false);
+        reader.open(new ExecutionContext());
+        return reader;
+    }
+}
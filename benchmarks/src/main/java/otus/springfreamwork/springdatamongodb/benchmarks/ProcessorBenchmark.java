@@ -0,0 +1,81 @@
+package otus.springfreamwork.springdatamongodb.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import otus.springfreamwork.springdatamongodb.com.app.batch.DimensionCache;
+import otus.springfreamwork.springdatamongodb.com.app.batch.ResolveBookReferencesProcessor;
+import otus.springfreamwork.springdatamongodb.domain.dao.AuthorRepository;
+import otus.springfreamwork.springdatamongodb.domain.dao.GenreRepository;
+import otus.springfreamwork.springdatamongodb.domain.model.Author;
+import otus.springfreamwork.springdatamongodb.domain.model.Book;
+import otus.springfreamwork.springdatamongodb.domain.model.Genre;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public class ProcessorBenchmark extends BenchmarkDefaults {
+
+    @State(Scope.Thread)
+    public static class Processor {
+
+        ResolveBookReferencesProcessor processor;
+        Book[] books;
+        LocalDate today = LocalDate.now();
+
+        @Setup(Level.Trial)
+        public void prepare(ImportData data) {
+            Map<String, Genre> genres = new LinkedHashMap<>();
+            Map<String, Author> authors = new LinkedHashMap<>();
+            books = new Book[ImportData.ROWS];
+            for (int i = 0; i < ImportData.ROWS; i++) {
+                books[i] = data.csvBookMapper.mapBook(data.fieldSets[i]);
+                genres.putIfAbsent(books[i].getGenre().getName(), books[i].getGenre());
+                for (Author author : books[i].getAuthors()) {
+                    authors.putIfAbsent(author.getName() + ' ' + author.getSurname(), author);
+                }
+            }
+            DimensionCache dimensionCache = new DimensionCache(
+                    repository(AuthorRepository.class, new ArrayList<>(authors.values())),
+                    repository(GenreRepository.class, new ArrayList<>(genres.values())),
+                    100_000);
+            processor = new ResolveBookReferencesProcessor(dimensionCache);
+        }
+    }
+
+    // books keep their resolved references between invocations, lookups hit the same cache entries every time
+    @Benchmark
+    public Book resolveReferences(Processor processor, ImportData data) throws Exception {
+        return processor.processor.process(processor.books[data.nextIndex()]);
+    }
+
+    @Benchmark
+    public int calculateAge(Processor processor, ImportData data) {
+        Book book = processor.books[data.nextIndex()];
+        book.calculateAge(processor.today);
+        return book.getAgeYears();
+    }
+
+    // DimensionCache preloads everything with findAll(Pageable), the benchmark never reaches MongoDB
+    @SuppressWarnings("unchecked")
+    private static <R> R repository(Class<R> repositoryType, List<?> content) {
+        return (R) Proxy.newProxyInstance(repositoryType.getClassLoader(), new Class[]{repositoryType}, (proxy, method, args) -> {
+            if (method.getName().equals("findAll") && args != null && args.length == 1 && args[0] instanceof Pageable) {
+                return new PageImpl<>(content);
+            }
+            if (method.getName().startsWith("findBy")) {
+                return Optional.empty();
+            }
+            throw new UnsupportedOperationException(method.getName());
+        });
+    }
+}
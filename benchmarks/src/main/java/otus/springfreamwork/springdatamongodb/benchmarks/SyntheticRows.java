@@ -0,0 +1,74 @@
+package otus.springfreamwork.springdatamongodb.benchmarks;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class SyntheticRows {
+
+    private static final String[] NAMES = {"Лев", "Фёдор", "Anton", "John Ronald Reuel", "Joanne", "Ivan", "Mary", "Arthur Conan"};
+    private static final String[] GENRES = {"novel", "fantasy", "drama", "poetry", "detective", "science fiction", "роман"};
+
+    private final Random random;
+    private final int authorCount;
+    private final int genreCount;
+    private final int maxAuthorsPerBook;
+
+    public SyntheticRows(long seed, int authorCount, int genreCount, int maxAuthorsPerBook) {
+        this.random = new Random(seed);
+        this.authorCount = authorCount;
+        this.genreCount = genreCount;
+        this.maxAuthorsPerBook = maxAuthorsPerBook;
+    }
+
+    public String nextRow(int bookNumber) {
+        StringBuilder row = new StringBuilder(96);
+        row.append("Book ").append(bookNumber).append(';');
+        row.append(1800 + random.nextInt(220)).append('-');
+        appendTwoDigits(row, 1 + random.nextInt(12)).append('-');
+        appendTwoDigits(row, 1 + random.nextInt(28)).append(';');
+        int authors = 1 + random.nextInt(maxAuthorsPerBook);
+        for (int i = 0; i < authors; i++) {
+            if (i > 0) {
+                row.append(',');
+            }
+            int author = random.nextInt(authorCount);
+            row.append(NAMES[author % NAMES.length]).append(" Surname").append(author);
+        }
+        int genre = random.nextInt(genreCount);
+        row.append(';').append(GENRES[genre % GENRES.length]);
+        if (genre >= GENRES.length) {
+            row.append(' ').append(genre);
+        }
+        return row.toString();
+    }
+
+    public List<String> rows(int count) {
+        List<String> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            rows.add(nextRow(i));
+        }
+        return rows;
+    }
+
+    public void write(Path file, int count) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < count; i++) {
+                writer.write(nextRow(i));
+                writer.write('\n');
+            }
+        }
+    }
+
+    private StringBuilder appendTwoDigits(StringBuilder row, int value) {
+        if (value < 10) {
+            row.append('0');
+        }
+        return row.append(value);
+    }
+}
@@ -0,0 +1,31 @@
+package otus.springfreamwork.springdatamongodb.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.batch.item.file.transform.FieldSet;
+import otus.springfreamwork.springdatamongodb.com.app.batch.MappedCsvItemReader;
+
+import static otus.springfreamwork.springdatamongodb.com.app.batch.CsvBookMapper.AUTHORS_COLUMN;
+
+public class TokenizationBenchmark extends BenchmarkDefaults {
+
+    @Benchmark
+    public FieldSet delimitedLineTokenizer(ImportData data) {
+        return data.tokenizer.tokenize(data.lines[data.nextIndex()]);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ImportData.ROWS)
+    public void mappedReaderAuthorsColumn(ImportData data, Blackhole blackhole) throws Exception {
+        MappedCsvItemReader<String> reader = data.openMappedReader(row -> row.getString(AUTHORS_COLUMN));
+        try {
+            String authors;
+            while ((authors = reader.read()) != null) {
+                blackhole.consume(authors);
+            }
+        } finally {
+            reader.close();
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package otus.springfreamwork.springdatamongodb.com.app.batch;
+
+import org.springframework.batch.core.ItemWriteListener;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.repeat.RepeatContext;
+import org.springframework.batch.repeat.context.RepeatContextSupport;
+import org.springframework.batch.repeat.policy.CompletionPolicySupport;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.ObjIntConsumer;
+
+public class AdaptiveCompletionPolicy extends CompletionPolicySupport implements ItemWriteListener<Object> {
+
+    public static final String LAST_CHUNK_SIZE = "chunk.size.last";
+    public static final String MIN_CHUNK_SIZE = "chunk.size.min";
+    public static final String MAX_CHUNK_SIZE = "chunk.size.max";
+    public static final String CHUNK_COUNT = "chunk.count";
+    public static final String CHUNK_SIZE_TOTAL = "chunk.size.total";
+
+    private final int minSize;
+    private final int maxSize;
+    private final long targetLatencyNanos;
+    private final ObjIntConsumer<String> chunkSizeRecorder;
+
+    private volatile int chunkSize;
+
+    private final ThreadLocal<Long> writeStart = new ThreadLocal<>();
+
+    public AdaptiveCompletionPolicy(int minSize, int maxSize, Duration targetLatency) {
+        this(minSize, maxSize, targetLatency, (stepName, size) -> {});
+    }
+
+    // the recorder gets the step name and the size chosen for every chunk of it
+    public AdaptiveCompletionPolicy(int minSize, int maxSize, Duration targetLatency, ObjIntConsumer<String> chunkSizeRecorder) {
+        if (minSize < 1 || maxSize < minSize) {
+            throw new IllegalArgumentException("Chunk size bounds must satisfy 1 <= min <= max, got min="
+                    + minSize + ", max=" + maxSize);
+        }
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.targetLatencyNanos = targetLatency.toNanos();
+        this.chunkSizeRecorder = chunkSizeRecorder;
+        this.chunkSize = minSize;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    @Override
+    public RepeatContext start(RepeatContext parent) {
+        int size = chunkSize;
+        record(size);
+        return new ChunkSizeContext(parent, size);
+    }
+
+    @Override
+    public boolean isComplete(RepeatContext context) {
+        return context.getStartedCount() >= ((ChunkSizeContext) context).size;
+    }
+
+    @Override
+    public void beforeWrite(List<?> items) {
+        writeStart.set(System.nanoTime());
+    }
+
+    // grows the interval twice while writes stay under the target, halves it when they do not
+    @Override
+    public void afterWrite(List<?> items) {
+        long latency = System.nanoTime() - writeStart.get();
+        writeStart.remove();
+        synchronized (this) {
+            if (latency <= targetLatencyNanos) {
+                chunkSize = Math.min(maxSize, chunkSize * 2);
+            } else {
+                chunkSize = Math.max(minSize, chunkSize / 2);
+            }
+        }
+    }
+
+    @Override
+    public void onWriteError(Exception exception, List<?> items) {
+        writeStart.remove();
+        synchronized (this) {
+            chunkSize = minSize;
+        }
+    }
+
+    private void record(int size) {
+        StepContext stepContext = StepSynchronizationManager.getContext();
+        if (stepContext == null) {
+            return;
+        }
+        StepExecution stepExecution = stepContext.getStepExecution();
+        ExecutionContext executionContext = stepExecution.getExecutionContext();
+        synchronized (stepExecution) {
+            executionContext.putInt(LAST_CHUNK_SIZE, size);
+            executionContext.putInt(MIN_CHUNK_SIZE, Math.min(size, executionContext.getInt(MIN_CHUNK_SIZE, size)));
+            executionContext.putInt(MAX_CHUNK_SIZE, Math.max(size, executionContext.getInt(MAX_CHUNK_SIZE, size)));
+            executionContext.putLong(CHUNK_COUNT, executionContext.getLong(CHUNK_COUNT, 0) + 1);
+            executionContext.putLong(CHUNK_SIZE_TOTAL, executionContext.getLong(CHUNK_SIZE_TOTAL, 0) + size);
+        }
+        chunkSizeRecorder.accept(stepExecution.getStepName(), size);
+    }
+
+    private static class ChunkSizeContext extends RepeatContextSupport {
+
+        private final int size;
+
+        ChunkSizeContext(RepeatContext parent, int size) {
+            super(parent);
+            this.size = size;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package otus.springfreamwork.springdatamongodb.com.app.batch;
+
+public class AuthorListParser {
+
+    private final char separator;
+
+    public AuthorListParser(char separator) {
+        this.separator = separator;
+    }
+
+    public AuthorNameBuffer parse(CharSequence authors, AuthorNameBuffer buffer) {
+        buffer.reset(authors);
+        int length = authors.length();
+        int entryStart = 0;
+        for (int i = 0; i <= length; i++) {
+            if (i == length || authors.charAt(i) == separator) {
+                parseEntry(authors, entryStart, i, buffer);
+                entryStart = i + 1;
+            }
+        }
+        return buffer;
+    }
+
+    // the last token of an entry is the surname, all tokens before it are the name
+    private void parseEntry(CharSequence authors, int start, int end, AuthorNameBuffer buffer) {
+        while (start < end && Character.isWhitespace(authors.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(authors.charAt(end - 1))) {
+            end--;
+        }
+        int surnameStart = end;
+        while (surnameStart > start && !Character.isWhitespace(authors.charAt(surnameStart - 1))) {
+            surnameStart--;
+        }
+        int nameEnd = surnameStart;
+        while (nameEnd > start && Character.isWhitespace(authors.charAt(nameEnd - 1))) {
+            nameEnd--;
+        }
+        if (nameEnd == start) {
+            throw new IllegalArgumentException("Malformed author entry '" + authors.subSequence(start, end)
+                    + "' in '" + authors + "', expected a name and a surname");
+        }
+        buffer.add(start, nameEnd, surnameStart, end);
+    }
+}
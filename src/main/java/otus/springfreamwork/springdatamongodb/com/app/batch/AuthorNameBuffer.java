@@ -0,0 +1,59 @@
+package otus.springfreamwork.springdatamongodb.com.app.batch;
+
+import java.util.Arrays;
+
+public class AuthorNameBuffer {
+
+    private CharSequence source;
+    private int[] bounds = new int[16];
+    private int size;
+
+    void reset(CharSequence source) {
+        this.source = source;
+        this.size = 0;
+    }
+
+    void add(int nameStart, int nameEnd, int surnameStart, int surnameEnd) {
+        int index = size * 4;
+        if (index + 4 > bounds.length) {
+            bounds = Arrays.copyOf(bounds, bounds.length * 2);
+        }
+        bounds[index] = nameStart;
+        bounds[index + 1] = nameEnd;
+        bounds[index + 2] = surnameStart;
+        bounds[index + 3] = surnameEnd;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    CharSequence source() {
+        return source;
+    }
+
+    int nameStart(int author) {
+        return bounds[author * 4];
+    }
+
+    int nameEnd(int author) {
+        return bounds[author * 4 + 1];
+    }
+
+    int surnameStart(int author) {
+        return bounds[author * 4 + 2];
+    }
+
+    int surnameEnd(int author) {
+        return bounds[author * 4 + 3];
+    }
+
+    public String name(int author) {
+        return source.subSequence(nameStart(author), nameEnd(author)).toString();
+    }
+
+    public String surname(int author) {
+        return source.subSequence(surnameStart(author), surnameEnd(author)).toString();
+    }
+}
@@ -0,0 +1,83 @@
+package otus.springfreamwork.springdatamongodb.com.app.batch;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// answers "surely absent" or "maybe present", partition steps add keys while others query it
+public class BloomFilter {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final AtomicLongArray words;
+    private final long bitSize;
+    private final int hashCount;
+
+    private BloomFilter(long bitSize, int hashCount) {
+        this.words = new AtomicLongArray((int) ((bitSize + 63) / 64));
+        this.bitSize = words.length() * 64L;
+        this.hashCount = hashCount;
+    }
+
+    public static BloomFilter create(long expectedKeys, double falsePositiveRate) {
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("False positive rate must be between 0 and 1: " + falsePositiveRate);
+        }
+        long keys = Math.max(1, expectedKeys);
+        long bitSize = (long) Math.ceil(-keys * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        bitSize = Math.min(Math.max(64, bitSize), Integer.MAX_VALUE);
+        int hashCount = Math.max(1, (int) Math.round((double) bitSize / keys * Math.log(2)));
+        return new BloomFilter(bitSize, hashCount);
+    }
+
+    public void put(CharSequence key) {
+        long hash1 = hash(key);
+        long hash2 = mix(hash1 ^ FNV_PRIME);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(hash1 + i * hash2, bitSize);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current = words.get(word);
+            while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask)) {
+                current = words.get(word);
+            }
+        }
+    }
+
+    public boolean mightContain(CharSequence key) {
+        long hash1 = hash(key);
+        long hash2 = mix(hash1 ^ FNV_PRIME);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(hash1 + i * hash2, bitSize);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long bitSize() {
+        return bitSize;
+    }
+
+    public int hashCount() {
+        return hashCount;
+    }
+
+    static long hash(CharSequence key) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < key.length(); i++) {
+            hash = (hash ^ key.charAt(i)) * FNV_PRIME;
+        }
+        return mix(hash);
+    }
+
+    // FNV leaves the low bits of similar keys correlated, the finalizer of MurmurHash3 spreads them
+    static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,117 @@
+package otus.springfreamwork.springdatamongodb.com.app.batch;
+
+import com.mongodb.BulkWriteError;
+import com.mongodb.MongoBulkWriteException;
+import org.bson.Document;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+public class BulkUpsertItemWriter<T> implements ItemWriter<T> {
+
+    // concurrent upserts of the same natural key may race on the unique index, a retry finds the winner's document
+    private static final int DUPLICATE_KEY = 11000;
+
+    private final MongoTemplate mongoTemplate;
+    private final Class<T> entityClass;
+    private final Function<T, Query> naturalKey;
+    private final boolean overwrite;
+    private final ExistingKeyFilter<T> existingKeys;
+
+    public BulkUpsertItemWriter(MongoTemplate mongoTemplate, Class<T> entityClass, Function<T, Query> naturalKey, boolean overwrite) {
+        this(mongoTemplate, entityClass, naturalKey, overwrite, null);
+    }
+
+    // keys the filter has surely not seen are inserted, which skips the lookup of an upsert,
+    // a key inserted meanwhile by another thread fails on the unique index and is retried as an upsert
+    public BulkUpsertItemWriter(
+            MongoTemplate mongoTemplate,
+            Class<T> entityClass,
+            Function<T, Query> naturalKey,
+            boolean overwrite,
+            ExistingKeyFilter<T> existingKeys
+    ) {
+        this.mongoTemplate = mongoTemplate;
+        this.entityClass = entityClass;
+        this.naturalKey = naturalKey;
+        this.overwrite = overwrite;
+        this.existingKeys = existingKeys;
+    }
+
+    @Override
+    public void write(List<? extends T> items) {
+        try {
+            upsert(items, existingKeys);
+        } catch (BulkOperationException e) {
+            upsert(duplicateKeyFailures(items, e), null);
+        } catch (MongoBulkWriteException e) {
+            // the collection API of the driver fails with its own exception, the template translates only the legacy one
+            upsert(duplicateKeyFailures(items, e), null);
+        }
+        if (existingKeys != null) {
+            items.forEach(existingKeys::add);
+        }
+    }
+
+    private void upsert(List<? extends T> items, ExistingKeyFilter<T> existingKeys) {
+        if (items.isEmpty()) {
+            return;
+        }
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, entityClass);
+        for (T item : items) {
+            if (existingKeys == null || existingKeys.mightExist(item)) {
+                bulkOperations.upsert(naturalKey.apply(item), toUpdate(mongoTemplate.getConverter(), item, overwrite));
+            } else {
+                bulkOperations.insert(item);
+            }
+        }
+        bulkOperations.execute();
+    }
+
+    private List<T> duplicateKeyFailures(List<? extends T> items, BulkOperationException e) {
+        List<T> failedItems = new ArrayList<>();
+        for (BulkWriteError error : e.getErrors()) {
+            if (error.getCode() != DUPLICATE_KEY) {
+                throw e;
+            }
+            failedItems.add(items.get(error.getIndex()));
+        }
+        return failedItems;
+    }
+
+    private List<T> duplicateKeyFailures(List<? extends T> items, MongoBulkWriteException e) {
+        List<T> failedItems = new ArrayList<>();
+        for (com.mongodb.bulk.BulkWriteError error : e.getWriteErrors()) {
+            if (error.getCode() != DUPLICATE_KEY) {
+                throw e;
+            }
+            failedItems.add(items.get(error.getIndex()));
+        }
+        return failedItems;
+    }
+
+    // the mapped document without its _id, as $set to overwrite a stored document or as $setOnInsert to keep it
+    static Update toUpdate(MongoConverter converter, Object item, boolean overwrite) {
+        Document document = new Document();
+        converter.write(item, document);
+        document.remove("_id");
+
+        Update update = new Update();
+        document.forEach((key, value) -> {
+            if (overwrite) {
+                update.set(key, value);
+            } else {
+                update.setOnInsert(key, value);
+            }
+        });
+        return update;
+    }
+}
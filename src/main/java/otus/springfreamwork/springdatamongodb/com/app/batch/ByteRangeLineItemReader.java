@@ -0,0 +1,150 @@
+package otus.springfreamwork.springdatamongodb.com.app.batch;
+
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.file.LineMapper;
+import org.springframework.batch.item.support.AbstractItemCountingItemStreamItemReader;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+public class ByteRangeLineItemReader<T> extends AbstractItemCountingItemStreamItemReader<T> {
+
+    private static final String OFFSET = "offset";
+    private static final String FINGERPRINT = "fingerprint";
+
+    private final Resource resource;
+    private final LineMapper<T> lineMapper;
+    private final long startOffset;
+    private final long endOffset;
+
+    private FileChannel channel;
+    private FileFingerprint fingerprint;
+    private Long restartOffset;
+    private String restartFingerprint;
+    private ByteBuffer buffer;
+    private byte[] line = new byte[256];
+    private long position;
+    private int lineNumber;
+
+    public ByteRangeLineItemReader(Resource resource, LineMapper<T> lineMapper) {
+        this(resource, lineMapper, 0, Long.MAX_VALUE);
+    }
+
+    public ByteRangeLineItemReader(Resource resource, LineMapper<T> lineMapper, long startOffset, long endOffset) {
+        this.resource = resource;
+        this.lineMapper = lineMapper;
+        this.startOffset = startOffset;
+        this.endOffset = endOffset;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        restartOffset = null;
+        restartFingerprint = null;
+        if (isSaveState() && executionContext.containsKey(getExecutionContextKey(OFFSET))) {
+            restartOffset = executionContext.getLong(getExecutionContextKey(OFFSET));
+            restartFingerprint = executionContext.getString(getExecutionContextKey(FINGERPRINT), null);
+        }
+        super.open(executionContext);
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        super.update(executionContext);
+        if (isSaveState() && channel != null) {
+            executionContext.putLong(getExecutionContextKey(OFFSET), position);
+            executionContext.putString(getExecutionContextKey(FINGERPRINT), fingerprint.at(position));
+        }
+    }
+
+    @Override
+    protected void doOpen() throws Exception {
+        channel = FileChannel.open(resource.getFile().toPath(), StandardOpenOption.READ);
+        fingerprint = new FileFingerprint(resource, channel);
+        buffer = ByteBuffer.allocate(64 * 1024);
+        seek(startOffset);
+        lineNumber = 0;
+    }
+
+    // checkpoints written before offsets were saved fall back to reading the skipped lines
+    @Override
+    protected void jumpToItem(int itemIndex) throws Exception {
+        if (restartOffset == null) {
+            super.jumpToItem(itemIndex);
+            return;
+        }
+        fingerprint.verify(restartFingerprint, restartOffset);
+        seek(restartOffset);
+        lineNumber = itemIndex;
+    }
+
+    @Override
+    protected T doRead() throws Exception {
+        // a blank line carries no book and is skipped, like MappedCsvItemReader skips an empty row
+        while (position < endOffset) {
+            int length = readLine();
+            if (length < 0) {
+                return null;
+            }
+            lineNumber++;
+            if (length > 0) {
+                return lineMapper.mapLine(new String(line, 0, length, StandardCharsets.UTF_8), lineNumber);
+            }
+        }
+        return null;
+    }
+
+    // reads the next line into the line buffer, returns its length without the line break or -1 at the end of the file
+    private int readLine() throws IOException {
+        int length = 0;
+        boolean endOfLine = false;
+        while (!endOfLine) {
+            if (!buffer.hasRemaining()) {
+                buffer.clear();
+                int read = channel.read(buffer);
+                buffer.flip();
+                if (read <= 0) {
+                    break;
+                }
+            }
+            byte b = buffer.get();
+            position++;
+            if (b == '\n') {
+                endOfLine = true;
+            } else {
+                if (length == line.length) {
+                    line = Arrays.copyOf(line, length * 2);
+                }
+                line[length++] = b;
+            }
+        }
+        if (length > 0 && line[length - 1] == '\r') {
+            length--;
+        }
+        if (!endOfLine && length == 0) {
+            return -1;
+        }
+        return length;
+    }
+
+    private void seek(long offset) throws IOException {
+        channel.position(offset);
+        buffer.clear();
+        buffer.flip();
+        position = offset;
+    }
+
+    @Override
+    protected void doClose() throws Exception {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+}
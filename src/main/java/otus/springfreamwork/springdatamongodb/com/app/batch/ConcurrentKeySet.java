@@ -0,0 +1,169 @@
+package otus.springfreamwork.springdatamongodb.com.app.batch;
+
+import java.util.Arrays;
+import java.util.function.ToLongFunction;
+
+// remembers natural keys by their 64-bit hash in open-addressing tables instead of boxed set entries,
+// the chars of every key are kept in an arena so two keys with the same hash are still told apart.
+// Keys are compared exactly, like the unique indexes of the collections they are written to
+public class ConcurrentKeySet {
+
+    private static final int STRIPE_BITS = 6;
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int INITIAL_ARENA_SIZE = 1024;
+    private static final int MAX_ARENA_SIZE = Integer.MAX_VALUE - 8;
+
+    private final Stripe[] stripes = new Stripe[1 << STRIPE_BITS];
+    private final ToLongFunction<CharSequence> hashFunction;
+
+    public ConcurrentKeySet() {
+        this(BloomFilter::hash);
+    }
+
+    public ConcurrentKeySet(ToLongFunction<CharSequence> hashFunction) {
+        this.hashFunction = hashFunction;
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    // true if the key was not in the set yet, only a new key is copied into the arena
+    public boolean add(CharSequence key) {
+        long hash = hashFunction.applyAsLong(key);
+        return stripe(hash).add(hash, key);
+    }
+
+    public boolean contains(CharSequence key) {
+        long hash = hashFunction.applyAsLong(key);
+        return stripe(hash).contains(hash, key);
+    }
+
+    public long size() {
+        long size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    public void clear() {
+        for (Stripe stripe : stripes) {
+            stripe.clear();
+        }
+    }
+
+    // the high bits pick the stripe and the low bits the slot, so a stripe still spreads its keys over the table
+    private Stripe stripe(long hash) {
+        return stripes[(int) (hash >>> (64 - STRIPE_BITS))];
+    }
+
+    private static class Stripe {
+
+        private long[] hashes;
+        // offset of the key in the arena plus one, zero marks an empty slot
+        private int[] offsets;
+        // every key is stored as its length in two chars followed by its chars
+        private char[] arena;
+        private int arenaSize;
+        private int size;
+
+        private Stripe() {
+            clear();
+        }
+
+        private synchronized boolean add(long hash, CharSequence key) {
+            if (find(hash, key) >= 0) {
+                return false;
+            }
+            if ((size + 1) * 4L > hashes.length * 3L) {
+                resize();
+            }
+            int mask = hashes.length - 1;
+            int slot = (int) hash & mask;
+            while (offsets[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            hashes[slot] = hash;
+            offsets[slot] = append(key) + 1;
+            size++;
+            return true;
+        }
+
+        private synchronized boolean contains(long hash, CharSequence key) {
+            return find(hash, key) >= 0;
+        }
+
+        private synchronized int size() {
+            return size;
+        }
+
+        private synchronized void clear() {
+            hashes = new long[INITIAL_CAPACITY];
+            offsets = new int[INITIAL_CAPACITY];
+            arena = new char[INITIAL_ARENA_SIZE];
+            arenaSize = 0;
+            size = 0;
+        }
+
+        private int find(long hash, CharSequence key) {
+            int mask = hashes.length - 1;
+            for (int slot = (int) hash & mask; offsets[slot] != 0; slot = (slot + 1) & mask) {
+                if (hashes[slot] == hash && keyEquals(offsets[slot] - 1, key)) {
+                    return slot;
+                }
+            }
+            return -1;
+        }
+
+        private boolean keyEquals(int offset, CharSequence key) {
+            int length = arena[offset] << 16 | arena[offset + 1];
+            if (length != key.length()) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (arena[offset + 2 + i] != key.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int append(CharSequence key) {
+            int length = key.length();
+            long required = (long) arenaSize + 2 + length;
+            if (required > MAX_ARENA_SIZE) {
+                throw new IllegalStateException("Key set stripe is full: " + arenaSize + " chars");
+            }
+            if (required > arena.length) {
+                arena = Arrays.copyOf(arena, (int) Math.min(MAX_ARENA_SIZE, Math.max(required, arena.length * 2L)));
+            }
+            int offset = arenaSize;
+            arena[offset] = (char) (length >>> 16);
+            arena[offset + 1] = (char) length;
+            for (int i = 0; i < length; i++) {
+                arena[offset + 2 + i] = key.charAt(i);
+            }
+            arenaSize += 2 + length;
+            return offset;
+        }
+
+        private void resize() {
+            long[] oldHashes = hashes;
+            int[] oldOffsets = offsets;
+            hashes = new long[oldHashes.length * 2];
+            offsets = new int[oldOffsets.length * 2];
+            int mask = hashes.length - 1;
+            for (int i = 0; i < oldHashes.length; i++) {
+                if (oldOffsets[i] == 0) {
+                    continue;
+                }
+                int slot = (int) oldHashes[i] & mask;
+                while (offsets[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                hashes[slot] = oldHashes[i];
+                offsets[slot] = oldOffsets[i];
+            }
+        }
+    }
+}
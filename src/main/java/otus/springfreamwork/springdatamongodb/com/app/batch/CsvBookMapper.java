@@ -0,0 +1,69 @@
+package otus.springfreamwork.springdatamongodb.com.app.batch;
+
+import org.springframework.batch.item.file.transform.FieldSet;
+import otus.springfreamwork.springdatamongodb.domain.model.Author;
+import otus.springfreamwork.springdatamongodb.domain.model.Book;
+
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+
+public class CsvBookMapper {
+
+    public static final int NAME_COLUMN = 0;
+    public static final int PUBLISHED_DATE_COLUMN = 1;
+    public static final int AUTHORS_COLUMN = 2;
+    public static final int GENRE_COLUMN = 3;
+
+    private final AuthorListParser authorListParser = new AuthorListParser(',');
+    private final PublishedDateParser publishedDateParser = new PublishedDateParser();
+    private final ValueInterner valueInterner;
+    private final ThreadLocal<AuthorNameBuffer> authorNames = ThreadLocal.withInitial(AuthorNameBuffer::new);
+
+    public CsvBookMapper() {
+        this(new ValueInterner());
+    }
+
+    public CsvBookMapper(ValueInterner valueInterner) {
+        this.valueInterner = valueInterner;
+    }
+
+    public CsvRowMapper<Book> bookRowMapper() {
+        return row -> toBook(
+                row.getString(NAME_COLUMN),
+                publishedDateParser.parse(row.getString(PUBLISHED_DATE_COLUMN)),
+                row.getString(AUTHORS_COLUMN),
+                row.getString(GENRE_COLUMN)
+        );
+    }
+
+    public Book mapBook(FieldSet fieldSet) {
+        return toBook(
+                fieldSet.readString("name"),
+                publishedDateParser.parse(fieldSet.readString("publishedDate")),
+                fieldSet.readString("authors"),
+                fieldSet.readString("genre")
+        );
+    }
+
+    public Set<Author> parseAuthors(String authorsLine) {
+        AuthorNameBuffer names = authorListParser.parse(authorsLine, authorNames.get());
+        if (names.size() == 1) {
+            return valueInterner.singleAuthor(names, 0);
+        }
+        Set<Author> authors = new HashSet<>(names.size() * 2);
+        for (int i = 0; i < names.size(); i++) {
+            authors.add(valueInterner.author(names, i));
+        }
+        return authors;
+    }
+
+    private Book toBook(String name, Date publishedDate, String authorsLine, String genreLine) {
+        Book book = new Book();
+        book.setName(name);
+        book.setPublishedDate(publishedDate);
+        book.setAuthors(parseAuthors(authorsLine));
+        book.setGenre(valueInterner.genre(genreLine));
+        return book;
+    }
+}
@@ -0,0 +1,65 @@
+package otus.springfreamwork.springdatamongodb.com.app.batch;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+public class CsvRow {
+
+    private ByteBuffer buffer;
+    private int[] starts = new int[8];
+    private int[] ends = new int[8];
+    private int fieldCount;
+    private byte[] scratch = new byte[256];
+    private long lineNumber;
+
+    void reset(ByteBuffer buffer, long lineNumber) {
+        this.buffer = buffer;
+        this.lineNumber = lineNumber;
+        this.fieldCount = 0;
+    }
+
+    void addField(int start, int end) {
+        if (fieldCount == starts.length) {
+            starts = Arrays.copyOf(starts, fieldCount * 2);
+            ends = Arrays.copyOf(ends, fieldCount * 2);
+        }
+        starts[fieldCount] = start;
+        ends[fieldCount] = end;
+        fieldCount++;
+    }
+
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    public boolean isEmpty() {
+        return fieldCount == 0 || fieldCount == 1 && starts[0] == ends[0];
+    }
+
+    public String getString(int column) {
+        if (column >= fieldCount) {
+            throw new IndexOutOfBoundsException("Line " + lineNumber + " has " + fieldCount + " fields, no column " + column);
+        }
+        return decode(starts[column], ends[column]);
+    }
+
+    public String getLine() {
+        return fieldCount == 0 ? "" : decode(starts[0], ends[fieldCount - 1]);
+    }
+
+    private String decode(int start, int end) {
+        int length = end - start;
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        for (int i = 0; i < length; i++) {
+            scratch[i] = buffer.get(start + i);
+        }
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+}
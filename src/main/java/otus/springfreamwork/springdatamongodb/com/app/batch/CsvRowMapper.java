@@ -0,0 +1,6 @@
+package otus.springfreamwork.springdatamongodb.com.app.batch;
+
+public interface CsvRowMapper<T> {
+
+    T mapRow(CsvRow row) throws Exception;
+}
@@ -0,0 +1,138 @@
+package otus.springfreamwork.springdatamongodb.com.app.batch;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.annotation.AfterStep;
+import org.springframework.batch.core.annotation.BeforeStep;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+import otus.springfreamwork.springdatamongodb.domain.model.Author;
+import otus.springfreamwork.springdatamongodb.domain.model.Book;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+public class DeltaBookWriter implements ItemWriter<Book> {
+
+    public static final String INSERTED = "delta.inserted";
+    public static final String CHANGED = "delta.changed";
+    public static final String UNCHANGED = "delta.unchanged";
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final Logger logger = LoggerFactory.getLogger("Batch");
+
+    private final MongoTemplate mongoTemplate;
+    private final ItemWriter<Book> bookWriter;
+
+    private final AtomicLong inserted = new AtomicLong();
+    private final AtomicLong changed = new AtomicLong();
+    private final AtomicLong unchanged = new AtomicLong();
+    private volatile long run;
+
+    public DeltaBookWriter(MongoTemplate mongoTemplate, ItemWriter<Book> bookWriter) {
+        this.mongoTemplate = mongoTemplate;
+        this.bookWriter = bookWriter;
+    }
+
+    @BeforeStep
+    public void startRun(StepExecution stepExecution) {
+        run = deltaRun(stepExecution);
+        inserted.set(0);
+        changed.set(0);
+        unchanged.set(0);
+    }
+
+    @Override
+    public void write(List<? extends Book> books) throws Exception {
+        Map<String, Long> hashes = new HashMap<>();
+        for (Book book : books) {
+            hashes.put(book.getName(), contentHash(book));
+        }
+        Map<String, Long> previousHashes = new HashMap<>();
+        mongoTemplate.find(query(where("_id").in(hashes.keySet())), RowHash.class)
+                .forEach(rowHash -> previousHashes.put(rowHash.getKey(), rowHash.getHash()));
+
+        List<Book> modifiedBooks = new ArrayList<>();
+        List<String> unchangedNames = new ArrayList<>();
+        for (Book book : books) {
+            Long previousHash = previousHashes.get(book.getName());
+            if (previousHash == null) {
+                inserted.incrementAndGet();
+                modifiedBooks.add(book);
+            } else if (!previousHash.equals(hashes.get(book.getName()))) {
+                changed.incrementAndGet();
+                modifiedBooks.add(book);
+            } else {
+                unchanged.incrementAndGet();
+                unchangedNames.add(book.getName());
+            }
+        }
+
+        if (!modifiedBooks.isEmpty()) {
+            bookWriter.write(modifiedBooks);
+        }
+        saveHashes(modifiedBooks, hashes, unchangedNames);
+    }
+
+    @AfterStep
+    public void logDelta(StepExecution stepExecution) {
+        stepExecution.getExecutionContext().putLong(INSERTED, inserted.get());
+        stepExecution.getExecutionContext().putLong(CHANGED, changed.get());
+        stepExecution.getExecutionContext().putLong(UNCHANGED, unchanged.get());
+        logger.info("Изменения каталога: новых книг {}, изменённых {}, без изменений {}",
+                inserted.get(), changed.get(), unchanged.get());
+    }
+
+    // rows of one job instance share a run, so a restarted instance does not treat already imported rows as removed
+    public static long deltaRun(StepExecution stepExecution) {
+        return stepExecution.getJobExecution().getJobInstance().getInstanceId();
+    }
+
+    public static long contentHash(Book book) {
+        long hash = FNV_OFFSET_BASIS;
+        hash = hash(hash, book.getName());
+        hash = hash(hash, book.getPublishedDate() == null ? "" : Long.toString(book.getPublishedDate().getTime()));
+        hash = hash(hash, book.getGenre().getName());
+        String[] authors = new String[book.getAuthors().size()];
+        int i = 0;
+        for (Author author : book.getAuthors()) {
+            authors[i++] = author.getName() + ' ' + author.getSurname();
+        }
+        Arrays.sort(authors);
+        for (String author : authors) {
+            hash = hash(hash, author);
+        }
+        return hash;
+    }
+
+    private static long hash(long hash, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+        }
+        return (hash ^ 0xffff) * FNV_PRIME;
+    }
+
+    private void saveHashes(List<Book> modifiedBooks, Map<String, Long> hashes, List<String> unchangedNames) {
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, RowHash.class);
+        for (Book book : modifiedBooks) {
+            bulkOperations.upsert(query(where("_id").is(book.getName())),
+                    new Update().set("hash", hashes.get(book.getName())).set("run", run));
+        }
+        if (!unchangedNames.isEmpty()) {
+            bulkOperations.updateMulti(query(where("_id").in(unchangedNames)), new Update().set("run", run));
+        }
+        bulkOperations.execute();
+    }
+}
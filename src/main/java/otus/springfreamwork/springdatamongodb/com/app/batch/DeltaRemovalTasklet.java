@@ -0,0 +1,84 @@
+package otus.springfreamwork.springdatamongodb.com.app.batch;
+
+import com.mongodb.DBRef;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import otus.springfreamwork.springdatamongodb.domain.model.Book;
+import otus.springfreamwork.springdatamongodb.domain.model.Comment;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+public class DeltaRemovalTasklet implements Tasklet {
+
+    public static final String REMOVED = "delta.removed";
+    public static final String LAST_KEY = "delta.lastRemovedKey";
+
+    private final Logger logger = LoggerFactory.getLogger("Batch");
+
+    private final MongoTemplate mongoTemplate;
+    private final int batchSize;
+
+    public DeltaRemovalTasklet(MongoTemplate mongoTemplate, int batchSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.batchSize = batchSize;
+    }
+
+    // every call removes one batch of rows that the current run has not seen and commits it, rows are read in _id order
+    // from the last removed key, so the hash collection is scanned once and no index on run is needed
+    @Override
+    public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) {
+        StepExecution stepExecution = chunkContext.getStepContext().getStepExecution();
+        ExecutionContext executionContext = stepExecution.getExecutionContext();
+        Criteria notSeen = where("run").ne(DeltaBookWriter.deltaRun(stepExecution));
+        if (executionContext.containsKey(LAST_KEY)) {
+            notSeen = notSeen.and("_id").gt(executionContext.getString(LAST_KEY));
+        }
+        Query page = query(notSeen).with(Sort.by("_id")).limit(batchSize);
+        page.fields().include("_id");
+        List<String> removedNames = mongoTemplate.find(page, RowHash.class).stream()
+                .map(RowHash::getKey)
+                .collect(Collectors.toList());
+        if (removedNames.isEmpty()) {
+            logger.info("Удалено книг, пропавших из каталога: {}", stepExecution.getWriteCount());
+            return RepeatStatus.FINISHED;
+        }
+        unlinkComments(removedNames);
+        mongoTemplate.remove(query(where("name").in(removedNames)), Book.class);
+        mongoTemplate.remove(query(where("_id").in(removedNames)), RowHash.class);
+        contribution.incrementWriteCount(removedNames.size());
+        executionContext.putLong(REMOVED, stepExecution.getWriteCount() + removedNames.size());
+        executionContext.putString(LAST_KEY, removedNames.get(removedNames.size() - 1));
+        return RepeatStatus.CONTINUABLE;
+    }
+
+    // comments of a removed book keep their other books, like comments relinked by the staging import
+    private void unlinkComments(List<String> removedNames) {
+        Query removedBooks = query(where("name").in(removedNames));
+        removedBooks.fields().include("_id");
+        String bookCollection = mongoTemplate.getCollectionName(Book.class);
+        List<DBRef> refs = mongoTemplate.find(removedBooks, Document.class, bookCollection).stream()
+                .map(book -> new DBRef(bookCollection, book.get("_id")))
+                .collect(Collectors.toList());
+        if (refs.isEmpty()) {
+            return;
+        }
+        mongoTemplate.getCollection(mongoTemplate.getCollectionName(Comment.class)).updateMany(
+                new Document("books", new Document("$in", refs)),
+                new Document("$pull", new Document("books", new Document("$in", refs))));
+    }
+}
@@ -0,0 +1,102 @@
+package otus.springfreamwork.springdatamongodb.com.app.batch;
+
+import org.springframework.data.domain.PageRequest;
+import otus.springfreamwork.springdatamongodb.domain.dao.AuthorRepository;
+import otus.springfreamwork.springdatamongodb.domain.dao.GenreRepository;
+import otus.springfreamwork.springdatamongodb.domain.model.Author;
+import otus.springfreamwork.springdatamongodb.domain.model.Genre;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class DimensionCache {
+
+    private final AuthorRepository authorRepository;
+    private final GenreRepository genreRepository;
+    private final int maxEntries;
+
+    private final Map<String, Genre> genres = new ConcurrentHashMap<>();
+    private final Map<String, Author> authors = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private volatile boolean loaded;
+
+    public DimensionCache(AuthorRepository authorRepository, GenreRepository genreRepository, int maxEntries) {
+        this.authorRepository = authorRepository;
+        this.genreRepository = genreRepository;
+        this.maxEntries = maxEntries;
+    }
+
+    public Optional<Genre> findGenre(String name) {
+        load();
+        Genre genre = genres.get(name);
+        if (genre != null) {
+            hits.incrementAndGet();
+            return Optional.of(genre);
+        }
+        misses.incrementAndGet();
+        Optional<Genre> genreFromRepo = genreRepository.findByName(name);
+        genreFromRepo.ifPresent(found -> cache(genres, name, found));
+        return genreFromRepo;
+    }
+
+    public Optional<Author> findAuthor(String name, String surname) {
+        load();
+        String key = authorKey(name, surname);
+        Author author = authors.get(key);
+        if (author != null) {
+            hits.incrementAndGet();
+            return Optional.of(author);
+        }
+        misses.incrementAndGet();
+        Optional<Author> authorFromRepo = authorRepository.findByNameAndSurname(name, surname);
+        authorFromRepo.ifPresent(found -> cache(authors, key, found));
+        return authorFromRepo;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public int size() {
+        return genres.size() + authors.size();
+    }
+
+    private void load() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (loaded) {
+                return;
+            }
+            if (maxEntries > 0) {
+                genreRepository.findAll(PageRequest.of(0, maxEntries))
+                        .forEach(genre -> genres.put(genre.getName(), genre));
+            }
+            int authorsLimit = maxEntries - genres.size();
+            if (authorsLimit > 0) {
+                authorRepository.findAll(PageRequest.of(0, authorsLimit))
+                        .forEach(author -> authors.put(authorKey(author.getName(), author.getSurname()), author));
+            }
+            loaded = true;
+        }
+    }
+
+    // every put holds the same lock as the bound check, so concurrent misses cannot push the cache past maxEntries
+    private synchronized <T> void cache(Map<String, T> entries, String key, T value) {
+        if (entries.containsKey(key) || size() < maxEntries) {
+            entries.put(key, value);
+        }
+    }
+
+    private static String authorKey(String name, String surname) {
+        return name + '\u0000' + surname;
+    }
+}
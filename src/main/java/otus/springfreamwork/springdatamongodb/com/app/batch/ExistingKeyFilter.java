@@ -0,0 +1,121 @@
+package otus.springfreamwork.springdatamongodb.com.app.batch;
+
+import com.mongodb.client.MongoCursor;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.annotation.AfterStep;
+import org.springframework.batch.core.annotation.BeforeStep;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+// natural keys already stored in a collection, loaded into a Bloom filter when a step starts, a key the
+// filter has never seen is surely new and can be inserted without the lookup of an upsert
+public class ExistingKeyFilter<T> {
+
+    private static final int SCAN_BATCH_SIZE = 1000;
+
+    private final Logger logger = LoggerFactory.getLogger("Batch");
+
+    private final MongoTemplate mongoTemplate;
+    private final Class<T> entityClass;
+    private final String[] keyFields;
+    private final Function<T, String> key;
+    private final long expectedKeys;
+    private final double falsePositiveRate;
+
+    private volatile BloomFilter filter;
+    private volatile long jobExecutionId = -1;
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong checked = new AtomicLong();
+
+    public ExistingKeyFilter(
+            MongoTemplate mongoTemplate,
+            Class<T> entityClass,
+            Function<T, String> key,
+            long expectedKeys,
+            double falsePositiveRate,
+            String... keyFields
+    ) {
+        this.mongoTemplate = mongoTemplate;
+        this.entityClass = entityClass;
+        this.key = key;
+        this.expectedKeys = expectedKeys;
+        this.falsePositiveRate = falsePositiveRate;
+        this.keyFields = keyFields;
+    }
+
+    // values are kept as they are, the unique indexes tell "Leo" and "leo" apart too
+    public static String key(String... values) {
+        return String.join("\u0000", values);
+    }
+
+    // partitions of one step share the filter, it is loaded by the first of them
+    @BeforeStep
+    public synchronized void load(StepExecution stepExecution) {
+        if (jobExecutionId == stepExecution.getJobExecutionId()) {
+            return;
+        }
+        String collection = mongoTemplate.getCollectionName(entityClass);
+        long storedKeys = mongoTemplate.getCollection(collection).count();
+        BloomFilter loaded = BloomFilter.create(Math.max(expectedKeys, storedKeys), falsePositiveRate);
+        Document projection = new Document("_id", 0);
+        for (String field : keyFields) {
+            projection.append(field, 1);
+        }
+        String[] values = new String[keyFields.length];
+        try (MongoCursor<Document> cursor = mongoTemplate.getCollection(collection).find()
+                .projection(projection).batchSize(SCAN_BATCH_SIZE).iterator()) {
+            while (cursor.hasNext()) {
+                Document document = cursor.next();
+                for (int i = 0; i < keyFields.length; i++) {
+                    values[i] = String.valueOf(document.get(keyFields[i]));
+                }
+                loaded.put(key(values));
+            }
+        }
+        filter = loaded;
+        skipped.set(0);
+        checked.set(0);
+        jobExecutionId = stepExecution.getJobExecutionId();
+        logger.info("Фильтр ключей {}: загружено {}, размер {} бит, хэш-функций {}",
+                collection, storedKeys, loaded.bitSize(), loaded.hashCount());
+    }
+
+    public boolean mightExist(T item) {
+        BloomFilter current = filter;
+        if (current != null && !current.mightContain(key.apply(item))) {
+            skipped.incrementAndGet();
+            return false;
+        }
+        checked.incrementAndGet();
+        return true;
+    }
+
+    public void add(T item) {
+        BloomFilter current = filter;
+        if (current != null) {
+            current.put(key.apply(item));
+        }
+    }
+
+    public long getSkipped() {
+        return skipped.get();
+    }
+
+    public long getChecked() {
+        return checked.get();
+    }
+
+    @AfterStep
+    public void report(StepExecution stepExecution) {
+        String collection = mongoTemplate.getCollectionName(entityClass);
+        stepExecution.getExecutionContext().putLong("existingKeys." + collection + ".skipped", skipped.get());
+        stepExecution.getExecutionContext().putLong("existingKeys." + collection + ".checked", checked.get());
+        logger.info("Фильтр ключей {}: запросов к базе пропущено {}, проверено в базе {}",
+                collection, skipped.get(), checked.get());
+    }
+}
@@ -0,0 +1,32 @@
+package otus.springfreamwork.springdatamongodb.com.app.batch;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+
+// a split waits for all of its flows, a failed step asks the steps still running beside it to stop
+// at their next chunk instead of letting them read the whole file for nothing
+public class FailFastSplitListener implements StepExecutionListener {
+
+    private final Logger logger = LoggerFactory.getLogger("Batch");
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        if (!stepExecution.getStatus().isUnsuccessful()) {
+            return null;
+        }
+        for (StepExecution sibling : stepExecution.getJobExecution().getStepExecutions()) {
+            if (sibling != stepExecution && sibling.getStatus().isRunning()) {
+                logger.info("Шаг {} завершился ошибкой, шаг {} будет остановлен", stepExecution.getStepName(), sibling.getStepName());
+                sibling.setTerminateOnly();
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,65 @@
+package otus.springfreamwork.springdatamongodb.com.app.batch;
+
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+public class FileFingerprint {
+
+    private static final int SAMPLE_SIZE = 8 * 1024;
+
+    private final Resource resource;
+    private final FileChannel channel;
+    private final ByteBuffer sample = ByteBuffer.allocate(SAMPLE_SIZE);
+    private final long size;
+    private final long headChecksum;
+
+    public FileFingerprint(Resource resource, FileChannel channel) throws IOException {
+        this.resource = resource;
+        this.channel = channel;
+        this.size = channel.size();
+        this.headChecksum = checksum(0, Math.min(size, SAMPLE_SIZE));
+    }
+
+    // size, the beginning of the file and the bytes right before the offset, a checkpoint is only trusted if all three match
+    public String at(long offset) {
+        try {
+            return size + "/" + Long.toHexString(headChecksum) + "/"
+                    + Long.toHexString(checksum(Math.max(0, offset - SAMPLE_SIZE), offset));
+        } catch (IOException e) {
+            throw new ItemStreamException("Failed to fingerprint " + resource, e);
+        }
+    }
+
+    public void verify(String expected, long offset) {
+        if (expected == null) {
+            return;
+        }
+        String actual = at(offset);
+        if (!expected.equals(actual)) {
+            throw new ItemStreamException("Input file " + resource + " has changed since the checkpoint at offset "
+                    + offset + " was saved: expected fingerprint " + expected + ", found " + actual);
+        }
+    }
+
+    private long checksum(long from, long to) throws IOException {
+        CRC32 crc = new CRC32();
+        long position = from;
+        while (position < to) {
+            sample.clear();
+            sample.limit((int) Math.min(SAMPLE_SIZE, to - position));
+            int read = channel.read(sample, position);
+            if (read <= 0) {
+                break;
+            }
+            sample.flip();
+            crc.update(sample);
+            position += read;
+        }
+        return crc.getValue();
+    }
+}
@@ -0,0 +1,22 @@
+package otus.springfreamwork.springdatamongodb.com.app.batch;
+
+import org.springframework.batch.core.StepExecution;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+
+// every step, partition and thread of a job ages books against the day the job started
+public final class ImportDate {
+
+    private ImportDate() { }
+
+    public static LocalDate of(StepExecution stepExecution) {
+        Date startTime = stepExecution.getJobExecution().getStartTime();
+        if (startTime == null) {
+            return LocalDate.now();
+        }
+        return Instant.ofEpochMilli(startTime.getTime()).atZone(ZoneId.systemDefault()).toLocalDate();
+    }
+}
@@ -0,0 +1,195 @@
+package otus.springfreamwork.springdatamongodb.com.app.batch;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.ItemProcessListener;
+import org.springframework.batch.core.ItemReadListener;
+import org.springframework.batch.core.ItemWriteListener;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.scope.context.ChunkContext;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ImportMetricsListener implements ItemReadListener<Object>, ItemProcessListener<Object, Object>,
+        ItemWriteListener<Object>, ChunkListener, StepExecutionListener {
+
+    private final Logger logger = LoggerFactory.getLogger("Batch");
+
+    private final MeterRegistry meterRegistry;
+    private final long logIntervalNanos;
+
+    private final Map<String, StepMeters> stepMeters = new ConcurrentHashMap<>();
+
+    // chunks are read, processed and written on the thread that started them
+    private final ThreadLocal<Probe> probe = ThreadLocal.withInitial(Probe::new);
+
+    public ImportMetricsListener(MeterRegistry meterRegistry, Duration logInterval) {
+        this.meterRegistry = meterRegistry;
+        this.logIntervalNanos = logInterval.toNanos();
+    }
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+        meters(stepExecution.getStepName());
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        StepMeters meters = meters(stepExecution.getStepName());
+        logger.info("Шаг {} завершён: прочитано {}, отфильтровано {}, записано {}, пачек {}, среднее время записи пачки {} мс",
+                stepExecution.getStepName(),
+                stepExecution.getReadCount(),
+                stepExecution.getFilterCount(),
+                stepExecution.getWriteCount(),
+                stepExecution.getCommitCount(),
+                Math.round(meters.write.mean(TimeUnit.MILLISECONDS)));
+        return null;
+    }
+
+    @Override
+    public void beforeChunk(ChunkContext context) {
+        Probe current = probe.get();
+        current.meters = meters(context.getStepContext().getStepName());
+        current.chunkStart = System.nanoTime();
+    }
+
+    @Override
+    public void afterChunk(ChunkContext context) {
+        Probe current = probe.get();
+        StepMeters meters = current.meters;
+        long now = System.nanoTime();
+        meters.chunk.record(now - current.chunkStart, TimeUnit.NANOSECONDS);
+        logProgress(context, meters, now);
+    }
+
+    @Override
+    public void afterChunkError(ChunkContext context) {
+        probe.get().meters.chunkErrors.increment();
+    }
+
+    @Override
+    public void beforeRead() {
+        probe.get().readStart = System.nanoTime();
+    }
+
+    @Override
+    public void afterRead(Object item) {
+        Probe current = probe.get();
+        current.meters.read.record(System.nanoTime() - current.readStart, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void onReadError(Exception e) {
+        probe.get().meters.readErrors.increment();
+    }
+
+    @Override
+    public void beforeProcess(Object item) {
+        probe.get().processStart = System.nanoTime();
+    }
+
+    @Override
+    public void afterProcess(Object item, Object result) {
+        Probe current = probe.get();
+        current.meters.process.record(System.nanoTime() - current.processStart, TimeUnit.NANOSECONDS);
+        if (result == null) {
+            current.meters.filtered.increment();
+        }
+    }
+
+    @Override
+    public void onProcessError(Object item, Exception e) {
+        probe.get().meters.processErrors.increment();
+    }
+
+    @Override
+    public void beforeWrite(List<?> items) {
+        probe.get().writeStart = System.nanoTime();
+    }
+
+    @Override
+    public void afterWrite(List<?> items) {
+        Probe current = probe.get();
+        current.meters.write.record(System.nanoTime() - current.writeStart, TimeUnit.NANOSECONDS);
+        current.meters.written.increment(items.size());
+    }
+
+    @Override
+    public void onWriteError(Exception exception, List<?> items) {
+        probe.get().meters.writeErrors.increment();
+    }
+
+    // the size AdaptiveCompletionPolicy chose for a chunk, the step may read fewer items at its end
+    public void recordChunkSize(String stepName, int size) {
+        meters(stepName).chunkSize.record(size);
+    }
+
+    private void logProgress(ChunkContext context, StepMeters meters, long now) {
+        long lastLog = meters.lastLog.get();
+        if (now - lastLog < logIntervalNanos || !meters.lastLog.compareAndSet(lastLog, now)) {
+            return;
+        }
+        logger.info("Шаг {}: прочитано {}, записано {}, пачек {}",
+                context.getStepContext().getStepName(),
+                meters.read.count(),
+                (long) meters.written.count(),
+                meters.chunk.count());
+    }
+
+    // partitions of one worker step share the meters of that step
+    private StepMeters meters(String stepName) {
+        int partitionSeparator = stepName.indexOf(':');
+        String step = partitionSeparator < 0 ? stepName : stepName.substring(0, partitionSeparator);
+        return stepMeters.computeIfAbsent(step, name -> new StepMeters(meterRegistry, name));
+    }
+
+    private static class Probe {
+        private StepMeters meters;
+        private long chunkStart;
+        private long readStart;
+        private long processStart;
+        private long writeStart;
+    }
+
+    private static class StepMeters {
+
+        private final Timer read;
+        private final Timer process;
+        private final Timer write;
+        private final Timer chunk;
+        private final DistributionSummary chunkSize;
+        private final Counter written;
+        private final Counter filtered;
+        private final Counter readErrors;
+        private final Counter processErrors;
+        private final Counter writeErrors;
+        private final Counter chunkErrors;
+        private final AtomicLong lastLog = new AtomicLong(System.nanoTime());
+
+        StepMeters(MeterRegistry registry, String step) {
+            read = registry.timer("import.read", "step", step);
+            process = registry.timer("import.process", "step", step);
+            write = registry.timer("import.write", "step", step);
+            chunk = registry.timer("import.chunk", "step", step);
+            chunkSize = registry.summary("import.chunk.size", "step", step);
+            written = registry.counter("import.write.items", "step", step);
+            filtered = registry.counter("import.process.filtered", "step", step);
+            readErrors = registry.counter("import.errors", "step", step, "phase", "read");
+            processErrors = registry.counter("import.errors", "step", step, "phase", "process");
+            writeErrors = registry.counter("import.errors", "step", step, "phase", "write");
+            chunkErrors = registry.counter("import.errors", "step", step, "phase", "chunk");
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package otus.springfreamwork.springdatamongodb.com.app.batch;
+
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.scope.context.JobContext;
+import org.springframework.batch.core.scope.context.JobSynchronizationManager;
+import org.springframework.core.task.TaskDecorator;
+
+public class JobContextTaskDecorator implements TaskDecorator {
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        JobContext jobContext = JobSynchronizationManager.getContext();
+        if (jobContext == null) {
+            return runnable;
+        }
+        JobExecution jobExecution = jobContext.getJobExecution();
+        return () -> {
+            JobSynchronizationManager.register(jobExecution);
+            try {
+                runnable.run();
+            } finally {
+                JobSynchronizationManager.close();
+            }
+        };
+    }
+}
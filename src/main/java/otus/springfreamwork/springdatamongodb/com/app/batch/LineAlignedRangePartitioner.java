@@ -0,0 +1,66 @@
+package otus.springfreamwork.springdatamongodb.com.app.batch;
+
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class LineAlignedRangePartitioner implements Partitioner {
+
+    public static final String START_OFFSET = "startOffset";
+    public static final String END_OFFSET = "endOffset";
+
+    private final Resource resource;
+
+    public LineAlignedRangePartitioner(Resource resource) {
+        this.resource = resource;
+    }
+
+    @Override
+    public Map<String, ExecutionContext> partition(int gridSize) {
+        Map<String, ExecutionContext> partitions = new LinkedHashMap<>();
+        try (FileChannel channel = FileChannel.open(resource.getFile().toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            long start = 0;
+            for (int i = 1; i <= gridSize && start < size; i++) {
+                long end = i == gridSize ? size : nextLineStart(channel, size * i / gridSize);
+                if (end > start) {
+                    ExecutionContext context = new ExecutionContext();
+                    context.putLong(START_OFFSET, start);
+                    context.putLong(END_OFFSET, end);
+                    partitions.put("partition" + partitions.size(), context);
+                    start = end;
+                }
+            }
+        } catch (IOException e) {
+            throw new ItemStreamException("Failed to split " + resource + " into byte ranges", e);
+        }
+        return partitions;
+    }
+
+    private long nextLineStart(FileChannel channel, long offset) throws IOException {
+        if (offset == 0) {
+            return 0;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        long position = offset - 1;
+        while (channel.read(buffer, position) > 0) {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                position++;
+                if (buffer.get() == '\n') {
+                    return position;
+                }
+            }
+            buffer.clear();
+        }
+        return channel.size();
+    }
+}
@@ -0,0 +1,155 @@
+package otus.springfreamwork.springdatamongodb.com.app.batch;
+
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.ItemStreamSupport;
+import org.springframework.batch.item.ParseException;
+import org.springframework.batch.item.file.FlatFileParseException;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+public class MappedCsvItemReader<T> extends ItemStreamSupport implements ItemStreamReader<T> {
+
+    private static final String OFFSET = "offset";
+    private static final String LINE_NUMBER = "lineNumber";
+    private static final String FINGERPRINT = "fingerprint";
+    private static final int MAX_WINDOW_SIZE = 256 * 1024 * 1024;
+
+    private final Resource resource;
+    private final CsvRowMapper<T> rowMapper;
+    private final byte delimiter;
+    private final CsvRow row = new CsvRow();
+
+    private boolean saveState = true;
+    private int windowSize = MAX_WINDOW_SIZE;
+
+    private FileChannel channel;
+    private FileFingerprint fingerprint;
+    private long fileSize;
+    private MappedByteBuffer window;
+    private long windowStart;
+    private long position;
+    private long lineNumber;
+
+    public MappedCsvItemReader(Resource resource, CsvRowMapper<T> rowMapper, char delimiter) {
+        this.resource = resource;
+        this.rowMapper = rowMapper;
+        this.delimiter = (byte) delimiter;
+        setName(MappedCsvItemReader.class.getSimpleName());
+    }
+
+    public void setSaveState(boolean saveState) {
+        this.saveState = saveState;
+    }
+
+    public void setWindowSize(int windowSize) {
+        this.windowSize = windowSize;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        try {
+            channel = FileChannel.open(resource.getFile().toPath(), StandardOpenOption.READ);
+            fileSize = channel.size();
+            fingerprint = new FileFingerprint(resource, channel);
+        } catch (IOException e) {
+            throw new ItemStreamException("Failed to open " + resource, e);
+        }
+        position = 0;
+        lineNumber = 0;
+        if (saveState && executionContext.containsKey(getExecutionContextKey(OFFSET))) {
+            position = executionContext.getLong(getExecutionContextKey(OFFSET));
+            lineNumber = executionContext.getLong(getExecutionContextKey(LINE_NUMBER));
+            fingerprint.verify(executionContext.getString(getExecutionContextKey(FINGERPRINT), null), position);
+        }
+        window = null;
+    }
+
+    @Override
+    public T read() throws Exception {
+        while (position < fileSize) {
+            if (!scanLine() || row.isEmpty()) {
+                continue;
+            }
+            try {
+                return rowMapper.mapRow(row);
+            } catch (Exception e) {
+                throw new FlatFileParseException("Parsing error at line: " + lineNumber + " in resource=[" + resource + "]",
+                        e, row.getLine(), (int) lineNumber);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        if (saveState) {
+            executionContext.putLong(getExecutionContextKey(OFFSET), position);
+            executionContext.putLong(getExecutionContextKey(LINE_NUMBER), lineNumber);
+            executionContext.putString(getExecutionContextKey(FINGERPRINT), fingerprint.at(position));
+        }
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        window = null;
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new ItemStreamException("Failed to close " + resource, e);
+            } finally {
+                channel = null;
+            }
+        }
+    }
+
+    // returns false when the window had to be moved to the current line start and the line must be scanned again
+    private boolean scanLine() throws IOException {
+        if (window == null || position < windowStart || position >= windowStart + window.limit()) {
+            map(position);
+        }
+        int index = (int) (position - windowStart);
+        int limit = window.limit();
+        row.reset(window, lineNumber + 1);
+        int fieldStart = index;
+        while (index < limit) {
+            byte b = window.get(index);
+            if (b == '\n') {
+                int end = index > fieldStart && window.get(index - 1) == '\r' ? index - 1 : index;
+                row.addField(fieldStart, end);
+                return completeLine(index + 1);
+            }
+            if (b == delimiter) {
+                row.addField(fieldStart, index);
+                fieldStart = index + 1;
+            }
+            index++;
+        }
+        if (windowStart + limit < fileSize) {
+            if (position == windowStart) {
+                throw new ParseException("Line " + (lineNumber + 1) + " of " + resource + " is longer than " + windowSize + " bytes");
+            }
+            map(position);
+            return false;
+        }
+        row.addField(fieldStart, index);
+        return completeLine(index);
+    }
+
+    private boolean completeLine(int nextIndex) {
+        position = windowStart + nextIndex;
+        lineNumber++;
+        return true;
+    }
+
+    private void map(long start) throws IOException {
+        windowStart = start;
+        window = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(windowSize, fileSize - start));
+    }
+}
@@ -0,0 +1,77 @@
+package otus.springfreamwork.springdatamongodb.com.app.batch;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class PublishedDateParser {
+
+    // a catalog repeats a few thousand publication dates, past the limit new dates are parsed without caching
+    private static final int MAX_CACHED_DATES = 10_000;
+
+    private final ZoneId zone;
+    private final Map<String, Long> epochMillis = new ConcurrentHashMap<>();
+
+    public PublishedDateParser() {
+        this(ZoneId.systemDefault());
+    }
+
+    public PublishedDateParser(ZoneId zone) {
+        this.zone = zone;
+    }
+
+    // Date is mutable, so every book gets its own instance built from the cached millis
+    public Date parse(String value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Unparseable date: null, format: [yyyy-MM-dd]");
+        }
+        Long millis = epochMillis.get(value);
+        if (millis == null) {
+            millis = toLocalDate(value).atStartOfDay(zone).toInstant().toEpochMilli();
+            if (epochMillis.size() < MAX_CACHED_DATES) {
+                epochMillis.putIfAbsent(value, millis);
+            }
+        }
+        return new Date(millis);
+    }
+
+    public static LocalDate toLocalDate(String value) {
+        String date = value.trim();
+        int firstDash = date.indexOf('-', 1);
+        int secondDash = firstDash < 0 ? -1 : date.indexOf('-', firstDash + 1);
+        if (secondDash < 0) {
+            throw unparseable(value, null);
+        }
+        try {
+            return LocalDate.of(
+                    digits(value, date, 0, firstDash),
+                    digits(value, date, firstDash + 1, secondDash),
+                    digits(value, date, secondDash + 1, date.length())
+            );
+        } catch (DateTimeException e) {
+            throw unparseable(value, e);
+        }
+    }
+
+    private static int digits(String value, String date, int start, int end) {
+        if (start == end || end - start > 9) {
+            throw unparseable(value, null);
+        }
+        int result = 0;
+        for (int i = start; i < end; i++) {
+            char c = date.charAt(i);
+            if (c < '0' || c > '9') {
+                throw unparseable(value, null);
+            }
+            result = result * 10 + (c - '0');
+        }
+        return result;
+    }
+
+    private static IllegalArgumentException unparseable(String value, Exception cause) {
+        return new IllegalArgumentException("Unparseable date: \"" + value + "\", format: [yyyy-MM-dd]", cause);
+    }
+}
@@ -0,0 +1,61 @@
+package otus.springfreamwork.springdatamongodb.com.app.batch;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.annotation.AfterStep;
+import org.springframework.batch.core.annotation.BeforeStep;
+import org.springframework.batch.item.ItemProcessor;
+import otus.springfreamwork.springdatamongodb.domain.model.Author;
+import otus.springfreamwork.springdatamongodb.domain.model.Book;
+import otus.springfreamwork.springdatamongodb.domain.model.Genre;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+
+public class ResolveBookReferencesProcessor implements ItemProcessor<Book, Book> {
+
+    private final Logger logger = LoggerFactory.getLogger("Batch");
+
+    private final DimensionCache dimensionCache;
+    private volatile LocalDate today = LocalDate.now();
+
+    public ResolveBookReferencesProcessor(DimensionCache dimensionCache) {
+        this.dimensionCache = dimensionCache;
+    }
+
+    @BeforeStep
+    public void captureImportDate(StepExecution stepExecution) {
+        today = ImportDate.of(stepExecution);
+    }
+
+    @Override
+    public Book process(Book book) throws Exception {
+        book.calculateAge(today);
+        Genre genre = book.getGenre();
+        Optional<Genre> genreFromRepo = dimensionCache.findGenre(genre.getName());
+        if (genreFromRepo.isPresent()) {
+            book.setGenre(genreFromRepo.get());
+        } else {
+            throw new Exception("No genre in DB: " + genre.getName());
+        }
+
+        Set<Author> authorsWithId = new HashSet<>();
+        for (Author author : book.getAuthors()) {
+            Optional<Author> authorFromRepo = dimensionCache.findAuthor(author.getName(), author.getSurname());
+            Author authorWithId = authorFromRepo.orElseThrow(() -> new Exception("No author in DB: " + author));
+            authorsWithId.add(authorWithId);
+        }
+        book.setAuthors(authorsWithId);
+        return book;
+    }
+
+    @AfterStep
+    public void logCacheStatistics(StepExecution stepExecution) {
+        stepExecution.getExecutionContext().putLong("dimensionCache.hits", dimensionCache.getHits());
+        stepExecution.getExecutionContext().putLong("dimensionCache.misses", dimensionCache.getMisses());
+        logger.info("Кэш авторов и жанров: попаданий {}, промахов {}", dimensionCache.getHits(), dimensionCache.getMisses());
+    }
+}
@@ -0,0 +1,35 @@
+package otus.springfreamwork.springdatamongodb.com.app.batch;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+@Document(collection = RowHash.COLLECTION)
+public class RowHash {
+
+    public static final String COLLECTION = "rowHash";
+
+    @Id
+    private String key;
+    private long hash;
+    private long run;
+
+    public RowHash() {}
+
+    public RowHash(String key, long hash, long run) {
+        this.key = key;
+        this.hash = hash;
+        this.run = run;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public long getHash() {
+        return hash;
+    }
+
+    public long getRun() {
+        return run;
+    }
+}
@@ -0,0 +1,91 @@
+package otus.springfreamwork.springdatamongodb.com.app.batch;
+
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.annotation.BeforeStep;
+import org.springframework.batch.item.ItemWriter;
+import otus.springfreamwork.springdatamongodb.domain.dao.AuthorRepository;
+import otus.springfreamwork.springdatamongodb.domain.dao.GenreRepository;
+import otus.springfreamwork.springdatamongodb.domain.model.Author;
+import otus.springfreamwork.springdatamongodb.domain.model.Book;
+import otus.springfreamwork.springdatamongodb.domain.model.Genre;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class SinglePassBookWriter implements ItemWriter<Book> {
+
+    private final AuthorRepository authorRepository;
+    private final GenreRepository genreRepository;
+    private final ItemWriter<Author> authorWriter;
+    private final ItemWriter<Genre> genreWriter;
+    private final ItemWriter<Book> bookWriter;
+    private volatile LocalDate today = LocalDate.now();
+
+    public SinglePassBookWriter(
+            AuthorRepository authorRepository,
+            GenreRepository genreRepository,
+            ItemWriter<Author> authorWriter,
+            ItemWriter<Genre> genreWriter,
+            ItemWriter<Book> bookWriter
+    ) {
+        this.authorRepository = authorRepository;
+        this.genreRepository = genreRepository;
+        this.authorWriter = authorWriter;
+        this.genreWriter = genreWriter;
+        this.bookWriter = bookWriter;
+    }
+
+    @BeforeStep
+    public void captureImportDate(StepExecution stepExecution) {
+        today = ImportDate.of(stepExecution);
+    }
+
+    @Override
+    public void write(List<? extends Book> books) throws Exception {
+        Map<String, Genre> genres = upsertGenres(books);
+        Map<List<String>, Author> authors = upsertAuthors(books);
+
+        for (Book book : books) {
+            book.calculateAge(today);
+            book.setGenre(genres.get(book.getGenre().getName()));
+            Set<Author> authorsWithId = new HashSet<>();
+            for (Author author : book.getAuthors()) {
+                authorsWithId.add(authors.get(Arrays.asList(author.getName(), author.getSurname())));
+            }
+            book.setAuthors(authorsWithId);
+        }
+        bookWriter.write(books);
+    }
+
+    private Map<String, Genre> upsertGenres(List<? extends Book> books) throws Exception {
+        Map<String, Genre> genres = new HashMap<>();
+        for (Book book : books) {
+            genres.putIfAbsent(book.getGenre().getName(), book.getGenre());
+        }
+        genreWriter.write(new ArrayList<>(genres.values()));
+
+        genreRepository.findAllByNameIn(genres.keySet())
+                .forEach(genre -> genres.put(genre.getName(), genre));
+        return genres;
+    }
+
+    private Map<List<String>, Author> upsertAuthors(List<? extends Book> books) throws Exception {
+        Map<List<String>, Author> authors = new HashMap<>();
+        for (Book book : books) {
+            for (Author author : book.getAuthors()) {
+                authors.putIfAbsent(Arrays.asList(author.getName(), author.getSurname()), author);
+            }
+        }
+        authorWriter.write(new ArrayList<>(authors.values()));
+
+        authorRepository.findAllByNameAndSurnameIn(authors.values())
+                .forEach(author -> authors.put(Arrays.asList(author.getName(), author.getSurname()), author));
+        return authors;
+    }
+}
@@ -0,0 +1,193 @@
+package otus.springfreamwork.springdatamongodb.com.app.batch;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.annotation.BeforeStep;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import otus.springfreamwork.springdatamongodb.domain.model.Author;
+import otus.springfreamwork.springdatamongodb.domain.model.Book;
+import otus.springfreamwork.springdatamongodb.domain.model.Genre;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+// every genre, author and book keeps the id it has in the live catalog, so comments still reference their
+// books after the swap. A key that is not live gets an id derived from the key itself, the same in every
+// chunk and after a restart, so the staging collections are written with bulk upserts by _id and need
+// no index on the natural key while loading
+public class StagingBookWriter implements ItemWriter<Book> {
+
+    private final MongoTemplate mongoTemplate;
+    private final StagingCollections stagingCollections;
+    private final int maxEntries;
+
+    // genres and authors already upserted into staging, copies owned by the writer, not the interned instances
+    private final Map<String, Genre> stagedGenres = new HashMap<>();
+    private final Map<String, Author> stagedAuthors = new HashMap<>();
+    private LocalDate today = LocalDate.now();
+
+    public StagingBookWriter(MongoTemplate mongoTemplate, StagingCollections stagingCollections, int maxEntries) {
+        this.mongoTemplate = mongoTemplate;
+        this.stagingCollections = stagingCollections;
+        this.maxEntries = maxEntries;
+    }
+
+    @BeforeStep
+    public void beforeStep(StepExecution stepExecution) {
+        today = ImportDate.of(stepExecution);
+        stagedGenres.clear();
+        stagedAuthors.clear();
+    }
+
+    @Override
+    public void write(List<? extends Book> books) {
+        // a repeated name replaces the earlier row, like the upserts of the other import modes
+        Map<String, Book> booksByName = new LinkedHashMap<>();
+        Set<String> genreNames = new HashSet<>();
+        Map<String, Author> authorsByKey = new HashMap<>();
+        for (Book book : books) {
+            booksByName.put(book.getName(), book);
+            if (!stagedGenres.containsKey(book.getGenre().getName())) {
+                genreNames.add(book.getGenre().getName());
+            }
+            for (Author author : book.getAuthors()) {
+                String key = authorKey(author);
+                if (!stagedAuthors.containsKey(key)) {
+                    authorsByKey.put(key, author);
+                }
+            }
+        }
+
+        Map<String, Genre> newGenres = stageGenres(genreNames);
+        Map<String, Author> newAuthors = stageAuthors(authorsByKey);
+        Map<String, String> liveBookIds = liveIds(Book.class, where("name").in(booksByName.keySet()),
+                document -> document.getString("name"));
+
+        BulkOperations bookOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Book.class,
+                stagingCollections.name(Book.class));
+        for (Book book : booksByName.values()) {
+            book.calculateAge(today);
+            book.setId(id(liveBookIds, Book.class, book.getName()));
+            book.setGenre(staged(book.getGenre().getName(), stagedGenres, newGenres));
+            Set<Author> authors = new HashSet<>();
+            for (Author author : book.getAuthors()) {
+                authors.add(staged(authorKey(author), stagedAuthors, newAuthors));
+            }
+            book.setAuthors(authors);
+            bookOperations.upsert(byId(book.getId()), BulkUpsertItemWriter.toUpdate(mongoTemplate.getConverter(), book, true));
+        }
+        bookOperations.execute();
+    }
+
+    private Map<String, Genre> stageGenres(Set<String> names) {
+        Map<String, Genre> genres = new HashMap<>();
+        if (names.isEmpty()) {
+            return genres;
+        }
+        Map<String, String> liveIds = liveIds(Genre.class, where("name").in(names), document -> document.getString("name"));
+        BulkOperations operations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Genre.class,
+                stagingCollections.name(Genre.class));
+        for (String name : names) {
+            Genre genre = new Genre(id(liveIds, Genre.class, name), name);
+            genres.put(name, genre);
+            operations.upsert(byId(genre.getId()), BulkUpsertItemWriter.toUpdate(mongoTemplate.getConverter(), genre, false));
+        }
+        operations.execute();
+        cache(stagedGenres, genres);
+        return genres;
+    }
+
+    private Map<String, Author> stageAuthors(Map<String, Author> authorsByKey) {
+        Map<String, Author> authors = new HashMap<>();
+        if (authorsByKey.isEmpty()) {
+            return authors;
+        }
+        Set<String> names = new HashSet<>();
+        authorsByKey.values().forEach(author -> names.add(author.getName()));
+        // the compound index starts with the name, the surname is matched here
+        Map<String, String> liveIds = liveIds(Author.class, where("name").in(names),
+                document -> authorKey(document.getString("name"), document.getString("surname")));
+        BulkOperations operations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Author.class,
+                stagingCollections.name(Author.class));
+        authorsByKey.forEach((key, author) -> {
+            Author copy = new Author(id(liveIds, Author.class, key),
+                    author.getName(), author.getSurname(), author.getCountry());
+            authors.put(key, copy);
+            operations.upsert(byId(copy.getId()), BulkUpsertItemWriter.toUpdate(mongoTemplate.getConverter(), copy, false));
+        });
+        operations.execute();
+        cache(stagedAuthors, authors);
+        return authors;
+    }
+
+    private Map<String, String> liveIds(Class<?> entityClass, Criteria keys,
+                                        Function<Document, String> naturalKey) {
+        Query query = query(keys);
+        query.fields().include("name").include("surname");
+        Map<String, String> ids = new HashMap<>();
+        for (Document document : mongoTemplate.find(query, Document.class, mongoTemplate.getCollectionName(entityClass))) {
+            ids.put(naturalKey.apply(document), document.get("_id").toString());
+        }
+        return ids;
+    }
+
+    // like the dimension cache, values that do not fit are upserted again in every chunk they appear in
+    private <T> void cache(Map<String, T> staged, Map<String, T> values) {
+        values.forEach((key, value) -> {
+            if (stagedGenres.size() + stagedAuthors.size() < maxEntries) {
+                staged.put(key, value);
+            }
+        });
+    }
+
+    private static <T> T staged(String key, Map<String, T> staged, Map<String, T> written) {
+        T value = staged.get(key);
+        return value != null ? value : written.get(key);
+    }
+
+    private static Query byId(String id) {
+        return query(where("_id").is(id));
+    }
+
+    private static String authorKey(Author author) {
+        return authorKey(author.getName(), author.getSurname());
+    }
+
+    private static String authorKey(String name, String surname) {
+        return name + '\u0000' + surname;
+    }
+
+    private static String id(Map<String, String> liveIds, Class<?> entityClass, String naturalKey) {
+        String id = liveIds.get(naturalKey);
+        return id != null ? id : derivedId(entityClass, naturalKey);
+    }
+
+    private static String derivedId(Class<?> entityClass, String naturalKey) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("MD5");
+            digest.update(entityClass.getName().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            return new ObjectId(Arrays.copyOf(digest.digest(naturalKey.getBytes(StandardCharsets.UTF_8)), 12)).toHexString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package otus.springfreamwork.springdatamongodb.com.app.batch;
+
+import com.mongodb.MongoNamespace;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.RenameCollectionOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver.IndexDefinitionHolder;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import otus.springfreamwork.springdatamongodb.domain.model.Author;
+import otus.springfreamwork.springdatamongodb.domain.model.Book;
+import otus.springfreamwork.springdatamongodb.domain.model.Genre;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class StagingCollections {
+
+    private static final String SUFFIX = "_staging";
+
+    // referenced collections go first, so a swapped collection never references one that is not swapped yet,
+    // comments are not staged, the staged books keep their live ids and the comments keep referencing them
+    private static final List<Class<?>> ENTITIES = Arrays.asList(Genre.class, Author.class, Book.class);
+
+    private final Logger logger = LoggerFactory.getLogger("Batch");
+
+    private final MongoTemplate mongoTemplate;
+
+    public StagingCollections(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    public String name(Class<?> entityClass) {
+        return mongoTemplate.getCollectionName(entityClass) + SUFFIX;
+    }
+
+    public void drop() {
+        ENTITIES.forEach(entityClass -> mongoTemplate.dropCollection(name(entityClass)));
+    }
+
+    // the indexes the mapping creates on the live collections, built once after the bulk load
+    public void createIndexes() {
+        MongoMappingContext mappingContext = (MongoMappingContext) mongoTemplate.getConverter().getMappingContext();
+        MongoPersistentEntityIndexResolver indexResolver = new MongoPersistentEntityIndexResolver(mappingContext);
+        for (Class<?> entityClass : ENTITIES) {
+            IndexOperations indexOperations = mongoTemplate.indexOps(name(entityClass));
+            for (IndexDefinitionHolder index : indexResolver.resolveIndexForEntity(mappingContext.getRequiredPersistentEntity(entityClass))) {
+                if (!index.getIndexKeys().containsKey("_id")) {
+                    indexOperations.ensureIndex(index);
+                }
+            }
+        }
+        logger.info("Индексы промежуточных коллекций построены");
+    }
+
+    public List<Class<?>> entities() {
+        return ENTITIES;
+    }
+
+    // the rename is atomic for one collection, readers see either its old or its new documents, but the
+    // collections are renamed one by one, so a reader between two renames sees some of them swapped.
+    // a missing staging collection is not created, it was already renamed over the live one
+    public boolean swap(Class<?> entityClass) {
+        if (!mongoTemplate.collectionExists(name(entityClass))) {
+            return false;
+        }
+        MongoDatabase database = mongoTemplate.getDb();
+        database.getCollection(name(entityClass)).renameCollection(
+                new MongoNamespace(database.getName(), mongoTemplate.getCollectionName(entityClass)),
+                new RenameCollectionOptions().dropTarget(true));
+        return true;
+    }
+}
@@ -0,0 +1,41 @@
+package otus.springfreamwork.springdatamongodb.com.app.batch;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.repeat.RepeatStatus;
+
+// every call renames one staging collection and records it in the step context in its own transaction,
+// a restarted swap continues with the next collection instead of renaming anything twice
+public class StagingSwapTasklet implements Tasklet {
+
+    public static final String SWAPPED = "swap.swappedCount";
+
+    private final Logger logger = LoggerFactory.getLogger("Batch");
+
+    private final StagingCollections stagingCollections;
+
+    public StagingSwapTasklet(StagingCollections stagingCollections) {
+        this.stagingCollections = stagingCollections;
+    }
+
+    @Override
+    public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) {
+        ExecutionContext executionContext = chunkContext.getStepContext().getStepExecution().getExecutionContext();
+        int swapped = executionContext.getInt(SWAPPED, 0);
+        if (swapped >= stagingCollections.entities().size()) {
+            logger.info("Промежуточные коллекции заменили основные");
+            return RepeatStatus.FINISHED;
+        }
+        Class<?> entityClass = stagingCollections.entities().get(swapped);
+        if (!stagingCollections.swap(entityClass)) {
+            // the rename went through before the step failed, but its progress was not saved
+            logger.warn("Промежуточная коллекция {} не найдена, считается уже заменённой", stagingCollections.name(entityClass));
+        }
+        executionContext.putInt(SWAPPED, swapped + 1);
+        return RepeatStatus.CONTINUABLE;
+    }
+}
@@ -0,0 +1,185 @@
+package otus.springfreamwork.springdatamongodb.com.app.batch;
+
+import otus.springfreamwork.springdatamongodb.domain.model.Author;
+import otus.springfreamwork.springdatamongodb.domain.model.Country;
+import otus.springfreamwork.springdatamongodb.domain.model.Genre;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// a catalog repeats a few thousand authors and a few dozen genres, readers share one instance per natural key
+// instead of building new objects for every row, the table is cleared when a job starts and ends
+public class ValueInterner {
+
+    public static final int NO_CODE = -1;
+
+    private static final int MAX_ENTRIES = 100_000;
+    private static final int INITIAL_AUTHOR_CAPACITY = 1024;
+
+    // open addressing on the hash of the name and surname chars, readers probe it without a lock and
+    // only a miss takes the lock, a reader of a replaced table misses and retries on the current one
+    private volatile AtomicReferenceArray<AuthorEntry> authors = new AtomicReferenceArray<>(INITIAL_AUTHOR_CAPACITY);
+    private int authorCount;
+
+    private final Map<String, Integer> genreCodes = new ConcurrentHashMap<>();
+    private final List<Genre> genres = new CopyOnWriteArrayList<>();
+
+    public Author author(String name, String surname) {
+        return authorEntry(name, 0, name.length(), surname, 0, surname.length()).author;
+    }
+
+    // only an author seen for the first time allocates, every other one is found from the chars of the row
+    public Author author(AuthorNameBuffer names, int index) {
+        return authorEntry(names, index).author;
+    }
+
+    // an immutable one-author set shared by every book of that author
+    public Set<Author> singleAuthor(AuthorNameBuffer names, int index) {
+        return authorEntry(names, index).singleton;
+    }
+
+    public Genre genre(String name) {
+        int code = genreCode(name);
+        return code == NO_CODE ? new Genre(name) : genres.get(code);
+    }
+
+    // genres are numbered in the order they are first seen, NO_CODE once the table is full
+    public int genreCode(String name) {
+        Integer code = genreCodes.get(name);
+        return code == null ? newGenreCode(name) : code;
+    }
+
+    public synchronized void clear() {
+        authors = new AtomicReferenceArray<>(INITIAL_AUTHOR_CAPACITY);
+        authorCount = 0;
+        genreCodes.clear();
+        genres.clear();
+    }
+
+    private AuthorEntry authorEntry(AuthorNameBuffer names, int index) {
+        CharSequence source = names.source();
+        return authorEntry(source, names.nameStart(index), names.nameEnd(index),
+                source, names.surnameStart(index), names.surnameEnd(index));
+    }
+
+    private AuthorEntry authorEntry(CharSequence name, int nameStart, int nameEnd,
+                                    CharSequence surname, int surnameStart, int surnameEnd) {
+        int hash = hash(name, nameStart, nameEnd, surname, surnameStart, surnameEnd);
+        AuthorEntry entry = find(authors, hash, name, nameStart, nameEnd, surname, surnameStart, surnameEnd);
+        return entry != null ? entry : newAuthorEntry(hash, name, nameStart, nameEnd, surname, surnameStart, surnameEnd);
+    }
+
+    private synchronized AuthorEntry newAuthorEntry(int hash, CharSequence name, int nameStart, int nameEnd,
+                                                    CharSequence surname, int surnameStart, int surnameEnd) {
+        AtomicReferenceArray<AuthorEntry> table = authors;
+        AuthorEntry entry = find(table, hash, name, nameStart, nameEnd, surname, surnameStart, surnameEnd);
+        if (entry != null) {
+            return entry;
+        }
+        Author author = new Author(name.subSequence(nameStart, nameEnd).toString(),
+                surname.subSequence(surnameStart, surnameEnd).toString(), Country.NONE);
+        entry = new AuthorEntry(hash, author);
+        if (authorCount >= MAX_ENTRIES) {
+            return entry;
+        }
+        if ((authorCount + 1) * 2 > table.length()) {
+            table = resize(table);
+            authors = table;
+        }
+        insert(table, entry);
+        authorCount++;
+        return entry;
+    }
+
+    private static AuthorEntry find(AtomicReferenceArray<AuthorEntry> table, int hash, CharSequence name, int nameStart,
+                                    int nameEnd, CharSequence surname, int surnameStart, int surnameEnd) {
+        int mask = table.length() - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            AuthorEntry entry = table.get(slot);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.hash == hash
+                    && matches(entry.author.getName(), name, nameStart, nameEnd)
+                    && matches(entry.author.getSurname(), surname, surnameStart, surnameEnd)) {
+                return entry;
+            }
+        }
+    }
+
+    private static void insert(AtomicReferenceArray<AuthorEntry> table, AuthorEntry entry) {
+        int mask = table.length() - 1;
+        int slot = entry.hash & mask;
+        while (table.get(slot) != null) {
+            slot = (slot + 1) & mask;
+        }
+        table.set(slot, entry);
+    }
+
+    private static AtomicReferenceArray<AuthorEntry> resize(AtomicReferenceArray<AuthorEntry> table) {
+        AtomicReferenceArray<AuthorEntry> resized = new AtomicReferenceArray<>(table.length() * 2);
+        for (int i = 0; i < table.length(); i++) {
+            AuthorEntry entry = table.get(i);
+            if (entry != null) {
+                insert(resized, entry);
+            }
+        }
+        return resized;
+    }
+
+    private static int hash(CharSequence name, int nameStart, int nameEnd,
+                            CharSequence surname, int surnameStart, int surnameEnd) {
+        int hash = 0;
+        for (int i = nameStart; i < nameEnd; i++) {
+            hash = 31 * hash + name.charAt(i);
+        }
+        hash = 31 * hash + '\n';
+        for (int i = surnameStart; i < surnameEnd; i++) {
+            hash = 31 * hash + surname.charAt(i);
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean matches(String value, CharSequence source, int start, int end) {
+        if (value.length() != end - start) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) != source.charAt(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private synchronized int newGenreCode(String name) {
+        Integer code = genreCodes.get(name);
+        if (code != null) {
+            return code;
+        }
+        if (genres.size() >= MAX_ENTRIES) {
+            return NO_CODE;
+        }
+        genres.add(new Genre(name));
+        genreCodes.put(name, genres.size() - 1);
+        return genres.size() - 1;
+    }
+
+    private static class AuthorEntry {
+
+        private final int hash;
+        private final Author author;
+        private final Set<Author> singleton;
+
+        private AuthorEntry(int hash, Author author) {
+            this.hash = hash;
+            this.author = author;
+            this.singleton = Collections.singleton(author);
+        }
+    }
+}
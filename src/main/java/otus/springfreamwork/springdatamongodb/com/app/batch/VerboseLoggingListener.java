@@ -0,0 +1,83 @@
+package otus.springfreamwork.springdatamongodb.com.app.batch;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.ItemProcessListener;
+import org.springframework.batch.core.ItemReadListener;
+import org.springframework.batch.core.ItemWriteListener;
+import org.springframework.batch.core.scope.context.ChunkContext;
+
+import java.util.List;
+
+public class VerboseLoggingListener implements ItemReadListener<Object>, ItemProcessListener<Object, Object>,
+        ItemWriteListener<Object>, ChunkListener {
+
+    private final Logger logger = LoggerFactory.getLogger("Batch");
+
+    private final String subject;
+
+    public VerboseLoggingListener(String subject) {
+        this.subject = subject;
+    }
+
+    @Override
+    public void beforeRead() {
+        logger.info("Начало чтения {}", subject);
+    }
+
+    @Override
+    public void afterRead(Object item) {
+        logger.info("Конец чтения {}", subject);
+    }
+
+    @Override
+    public void onReadError(Exception e) {
+        logger.info("Ошибка чтения {}", subject);
+    }
+
+    @Override
+    public void beforeProcess(Object item) {
+        logger.info("Начало обработки {}", subject);
+    }
+
+    @Override
+    public void afterProcess(Object item, Object result) {
+        logger.info("Конец обработки {}", subject);
+    }
+
+    @Override
+    public void onProcessError(Object item, Exception e) {
+        logger.info("Ошибка обработки {}", subject);
+    }
+
+    @Override
+    public void beforeWrite(List<?> items) {
+        logger.info("Начало записи {}", subject);
+    }
+
+    @Override
+    public void afterWrite(List<?> items) {
+        logger.info("Конец записи {}", subject);
+    }
+
+    @Override
+    public void onWriteError(Exception exception, List<?> items) {
+        logger.info("Ошибка записи {}", subject);
+    }
+
+    @Override
+    public void beforeChunk(ChunkContext context) {
+        logger.info("Начало пачки {}", subject);
+    }
+
+    @Override
+    public void afterChunk(ChunkContext context) {
+        logger.info("Конец пачки {}", subject);
+    }
+
+    @Override
+    public void afterChunkError(ChunkContext context) {
+        logger.info("Ошибка пачки {}", subject);
+    }
+}
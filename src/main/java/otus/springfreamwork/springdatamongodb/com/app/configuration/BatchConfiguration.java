@@ -10,44 +10,95 @@ import org.springframework.batch.core.Job;
 import org.springframework.batch.core.JobExecution;
 import org.springframework.batch.core.JobExecutionListener;
 import org.springframework.batch.core.Step;
-import org.springframework.batch.core.annotation.AfterJob;
+import org.springframework.batch.core.StepExecutionListener;
 import org.springframework.batch.core.annotation.AfterStep;
-import org.springframework.batch.core.annotation.BeforeJob;
 import org.springframework.batch.core.annotation.BeforeStep;
 import org.springframework.batch.core.configuration.annotation.EnableBatchProcessing;
 import org.springframework.batch.core.configuration.annotation.JobBuilderFactory;
+import org.springframework.batch.core.configuration.annotation.JobScope;
 import org.springframework.batch.core.configuration.annotation.StepBuilderFactory;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.core.job.builder.FlowBuilder;
+import org.springframework.batch.core.job.flow.Flow;
+import org.springframework.batch.core.job.flow.support.SimpleFlow;
 import org.springframework.batch.core.launch.support.RunIdIncrementer;
-import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.core.step.builder.SimpleStepBuilder;
+import org.springframework.batch.integration.async.AsyncItemProcessor;
+import org.springframework.batch.integration.async.AsyncItemWriter;
 import org.springframework.batch.item.ItemProcessor;
+import org.springframework.batch.item.ItemStreamReader;
 import org.springframework.batch.item.ItemWriter;
-import org.springframework.batch.item.file.FlatFileItemReader;
-import org.springframework.batch.item.file.builder.FlatFileItemReaderBuilder;
+import org.springframework.batch.item.file.LineMapper;
+import org.springframework.batch.item.file.mapping.DefaultLineMapper;
+import org.springframework.batch.item.file.mapping.FieldSetMapper;
+import org.springframework.batch.item.file.transform.DelimitedLineTokenizer;
+import org.springframework.batch.item.support.SynchronizedItemStreamReader;
+import org.springframework.batch.repeat.RepeatStatus;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import otus.springfreamwork.springdatamongodb.com.app.batch.AdaptiveCompletionPolicy;
+import otus.springfreamwork.springdatamongodb.com.app.batch.BulkUpsertItemWriter;
+import otus.springfreamwork.springdatamongodb.com.app.batch.ByteRangeLineItemReader;
+import otus.springfreamwork.springdatamongodb.com.app.batch.ConcurrentKeySet;
+import otus.springfreamwork.springdatamongodb.com.app.batch.CsvBookMapper;
+import otus.springfreamwork.springdatamongodb.com.app.batch.CsvRowMapper;
+import otus.springfreamwork.springdatamongodb.com.app.batch.DeltaBookWriter;
+import otus.springfreamwork.springdatamongodb.com.app.batch.DeltaRemovalTasklet;
+import otus.springfreamwork.springdatamongodb.com.app.batch.DimensionCache;
+import otus.springfreamwork.springdatamongodb.com.app.batch.ExistingKeyFilter;
+import otus.springfreamwork.springdatamongodb.com.app.batch.FailFastSplitListener;
+import otus.springfreamwork.springdatamongodb.com.app.batch.ImportMetricsListener;
+import otus.springfreamwork.springdatamongodb.com.app.batch.JobContextTaskDecorator;
+import otus.springfreamwork.springdatamongodb.com.app.batch.LineAlignedRangePartitioner;
+import otus.springfreamwork.springdatamongodb.com.app.batch.MappedCsvItemReader;
+import otus.springfreamwork.springdatamongodb.com.app.batch.ResolveBookReferencesProcessor;
+import otus.springfreamwork.springdatamongodb.com.app.batch.SinglePassBookWriter;
+import otus.springfreamwork.springdatamongodb.com.app.batch.StagingBookWriter;
+import otus.springfreamwork.springdatamongodb.com.app.batch.StagingCollections;
+import otus.springfreamwork.springdatamongodb.com.app.batch.StagingSwapTasklet;
+import otus.springfreamwork.springdatamongodb.com.app.batch.ValueInterner;
+import otus.springfreamwork.springdatamongodb.com.app.batch.VerboseLoggingListener;
+import otus.springfreamwork.springdatamongodb.com.app.servicies.LookupCaches;
 import otus.springfreamwork.springdatamongodb.domain.dao.AuthorRepository;
-import otus.springfreamwork.springdatamongodb.domain.dao.BookRepository;
 import otus.springfreamwork.springdatamongodb.domain.dao.GenreRepository;
 import otus.springfreamwork.springdatamongodb.domain.model.Author;
 import otus.springfreamwork.springdatamongodb.domain.model.Book;
-import otus.springfreamwork.springdatamongodb.domain.model.Country;
 import otus.springfreamwork.springdatamongodb.domain.model.Genre;
 
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.Date;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashSet;
-import java.util.List;
-import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+import static otus.springfreamwork.springdatamongodb.com.app.batch.CsvBookMapper.AUTHORS_COLUMN;
+import static otus.springfreamwork.springdatamongodb.com.app.batch.CsvBookMapper.GENRE_COLUMN;
+import static otus.springfreamwork.springdatamongodb.com.app.configuration.ImportProperties.ReaderType.MAPPED;
+
 @Configuration
 @EnableBatchProcessing
+@EnableConfigurationProperties(ImportProperties.class)
 public class BatchConfiguration {
 
+    public static final String DELTA_IMPORT_JOB = "deltaImportBookJob";
+    public static final String STAGING_IMPORT_JOB = "stagingImportBookJob";
+
+    private final ValueInterner valueInterner = new ValueInterner();
+    private final CsvBookMapper csvBookMapper = new CsvBookMapper(valueInterner);
+    private final FailFastSplitListener failFastSplitListener = new FailFastSplitListener();
+
     private final Logger logger = LoggerFactory.getLogger("Batch");
 
     @Autowired
@@ -57,7 +108,7 @@ public class BatchConfiguration {
     public StepBuilderFactory stepBuilderFactory;
 
     @Autowired
-    private BookRepository bookRepository;
+    private MongoTemplate mongoTemplate;
 
     @Autowired
     private GenreRepository genreRepository;
@@ -65,45 +116,43 @@ public class BatchConfiguration {
     @Autowired
     private AuthorRepository authorRepository;
 
+    @Autowired
+    private ImportProperties importProperties;
+
+    @Autowired
+    private ImportMetricsListener importMetricsListener;
+
+    @Autowired
+    private LookupCaches lookupCaches;
+
     @Bean
-    public FlatFileItemReader<Set<Author>> authorReader() {
-        return new FlatFileItemReaderBuilder<Set<Author>>()
-                .name("authorItemReader")
-                .resource(new FileSystemResource("data.csv"))
-                .delimited()
-                .delimiter(";")
-                .names(new String[]{"name", "publishedDate", "authors", "genre"})
-                .fieldSetMapper(fieldSet -> {
-                    String authorsLine = fieldSet.readString("authors");
-                    Set<Author> authors = Arrays.stream(authorsLine.split(","))
-                            .map(authorName -> {
-                                String[] authorData = authorName.trim().split(" ");
-                                return new Author(authorData[0], authorData[1], Country.NONE);
-                            }).collect(Collectors.toSet());
-                    return authors;
-                })
-                .build();
+    public ItemStreamReader<Set<Author>> authorReader() {
+        if (importProperties.getReader() == MAPPED) {
+            return mappedReader("authorItemReader", row -> csvBookMapper.parseAuthors(row.getString(AUTHORS_COLUMN)));
+        }
+        return lineReader("authorItemReader", fieldSet -> csvBookMapper.parseAuthors(fieldSet.readString("authors")));
     }
 
     @Bean
     public ItemProcessor<Set<Author>, Set<Author>> filterDuplicateAuthors() {
         return new ItemProcessor<Set<Author>, Set<Author>>() {
 
-            private Set<Author> uniqueAuthors;
+            private ConcurrentKeySet uniqueAuthors;
 
             @Override
             public Set<Author> process(Set<Author> authors) throws Exception {
-                authors = authors.stream()
-                        .filter(author -> !authorRepository.findByNameAndSurname(author.getName(), author.getSurname()).isPresent())
-                        .collect(Collectors.toSet());
-                authors.removeAll(uniqueAuthors);
-                uniqueAuthors.addAll(authors);
-                return authors;
+                Set<Author> newAuthors = new HashSet<>();
+                for (Author author : authors) {
+                    if (uniqueAuthors.add(ExistingKeyFilter.key(author.getName(), author.getSurname()))) {
+                        newAuthors.add(author);
+                    }
+                }
+                return newAuthors.isEmpty() ? null : newAuthors;
             }
 
             @BeforeStep
             public void initList() {
-                uniqueAuthors = Collections.synchronizedSet(new HashSet<>());
+                uniqueAuthors = new ConcurrentKeySet();
             }
 
             @AfterStep
@@ -113,325 +162,621 @@ public class BatchConfiguration {
         };
     }
 
+    @Bean
+    public ExistingKeyFilter<Author> existingAuthors() {
+        return new ExistingKeyFilter<>(mongoTemplate, Author.class,
+                author -> ExistingKeyFilter.key(author.getName(), author.getSurname()),
+                importProperties.getExistingKeys().getExpectedKeys(),
+                importProperties.getExistingKeys().getFalsePositiveRate(),
+                "name", "surname");
+    }
+
     @Bean
     public ItemWriter<Set<Author>> writeAuthorsToDB() {
+        ItemWriter<Author> authorUpsertWriter = new BulkUpsertItemWriter<>(mongoTemplate, Author.class,
+                BatchConfiguration::authorKey, false, existingAuthors());
         return list -> {
             Set<Author> combinedAuthors = list.stream()
                     .flatMap(authors -> authors.stream())
                     .collect(Collectors.toSet());
-            authorRepository.saveAll(combinedAuthors);
+            authorUpsertWriter.write(new ArrayList<>(combinedAuthors));
         };
     }
 
     @Bean
-    public Step step1(FlatFileItemReader authorReader, ItemProcessor filterDuplicateAuthors, ItemWriter writeAuthorsToDB) {
-        return stepBuilderFactory.get("step1")
-                .chunk(3)
+    public Step step1(ItemStreamReader authorReader, ItemProcessor filterDuplicateAuthors, ItemWriter writeAuthorsToDB) {
+        AdaptiveCompletionPolicy completionPolicy = adaptiveCompletionPolicy();
+        SimpleStepBuilder step = stepBuilderFactory.get("step1")
+                .chunk(completionPolicy)
                 .reader(authorReader)
                 .processor(filterDuplicateAuthors)
                 .writer(writeAuthorsToDB)
-                .listener(new ItemReadListener() {
-                    public void beforeRead() {
-                        logger.info("Начало чтения авторов");
-                    }
-
-                    public void afterRead(Object o) {
-                        logger.info("Конец чтения авторов");
-                    }
-
-                    public void onReadError(Exception e) {
-                        logger.info("Ошибка чтения авторов");
-                    }
-                })
-                .listener(new ItemWriteListener() {
-                    public void beforeWrite(List list) {
-                        logger.info("Начало записи авторов");
-                    }
-
-                    public void afterWrite(List list) {
-                        logger.info("Конец записи авторов");
-                    }
-
-                    public void onWriteError(Exception e, List list) {
-                        logger.info("Ошибка записи авторов");
-                    }
-                })
-                .listener(new ItemProcessListener() {
-                    public void beforeProcess(Object o) {
-                        logger.info("Начало обработки авторов");
-                    }
-
-                    public void afterProcess(Object o, Object o2) {
-                        logger.info("Конец обработки авторов");
-                    }
-
-                    public void onProcessError(Object o, Exception e) {
-                        logger.info("Ошбка обработки авторов");
-                    }
-                })
-                .listener(new ChunkListener() {
-                    public void beforeChunk(ChunkContext chunkContext) {
-                        logger.info("Начало пачки авторов");
-                    }
-
-                    public void afterChunk(ChunkContext chunkContext) {
-                        logger.info("Конец пачки авторов");
-                    }
-
-                    public void afterChunkError(ChunkContext chunkContext) {
-                        logger.info("Ошибка пачки авторов");
-                    }
-                })
-                .build();
+                .listener((ItemWriteListener) completionPolicy);
+        step.listener((StepExecutionListener) failFastSplitListener);
+        withExistingKeyFilter(step, existingAuthors());
+        return withImportListeners(step, "авторов").build();
     }
 
     @Bean
-    public FlatFileItemReader<Genre> genreReader() {
-        return new FlatFileItemReaderBuilder<Genre>()
-                .name("genreItemReader")
-                .resource(new FileSystemResource("data.csv"))
-                .delimited()
-                .delimiter(";")
-                .names(new String[]{"name", "publishedDate", "authors", "genre"})
-                .fieldSetMapper(fieldSet -> {
-                    String genreLine = fieldSet.readString("genre");
-                    return new Genre(genreLine);
-                })
-                .build();
+    public ItemStreamReader<Genre> genreReader() {
+        if (importProperties.getReader() == MAPPED) {
+            return mappedReader("genreItemReader", row -> valueInterner.genre(row.getString(GENRE_COLUMN)));
+        }
+        return lineReader("genreItemReader", fieldSet -> valueInterner.genre(fieldSet.readString("genre")));
     }
 
     @Bean
     public ItemProcessor<Genre, Genre> filterDuplicateGenres() {
         return new ItemProcessor<Genre, Genre>() {
 
-            private Set<Genre> uniqueGenres;
+            // interned genres are tracked by their code, genres past the interner limit fall back to the set
+            private BitSet uniqueGenreCodes;
+            private ConcurrentKeySet uniqueGenres;
 
             @Override
             public Genre process(Genre genre) throws Exception {
-                if (genreRepository.findByName(genre.getName()).isPresent() || uniqueGenres.contains(genre)) {
-                    return null;
-                } else {
-                    uniqueGenres.add(genre);
-                    return genre;
+                int code = valueInterner.genreCode(genre.getName());
+                if (code != ValueInterner.NO_CODE) {
+                    synchronized (this) {
+                        if (uniqueGenreCodes.get(code)) {
+                            return null;
+                        }
+                        uniqueGenreCodes.set(code);
+                        return genre;
+                    }
                 }
+                return uniqueGenres.add(ExistingKeyFilter.key(genre.getName())) ? genre : null;
             }
 
             @BeforeStep
-            public void initList() {
-                uniqueGenres = Collections.synchronizedSet(new HashSet<>());
+            public synchronized void initList() {
+                uniqueGenreCodes = new BitSet();
+                uniqueGenres = new ConcurrentKeySet();
             }
 
             @AfterStep
-            public void clearList() {
+            public synchronized void clearList() {
+                uniqueGenreCodes.clear();
                 uniqueGenres.clear();
             }
         };
     }
 
+    @Bean
+    public ExistingKeyFilter<Genre> existingGenres() {
+        return new ExistingKeyFilter<>(mongoTemplate, Genre.class,
+                genre -> ExistingKeyFilter.key(genre.getName()),
+                importProperties.getExistingKeys().getExpectedKeys(),
+                importProperties.getExistingKeys().getFalsePositiveRate(),
+                "name");
+    }
+
     @Bean
     public ItemWriter<Genre> writeGenresToDB() {
-        return list -> genreRepository.saveAll(list);
+        return new BulkUpsertItemWriter<>(mongoTemplate, Genre.class, BatchConfiguration::genreKey, false, existingGenres());
     }
 
     @Bean
-    public Step step2(FlatFileItemReader genreReader, ItemProcessor filterDuplicateGenres, ItemWriter writeGenresToDB) {
-        return stepBuilderFactory.get("step2")
-                .chunk(3)
+    public Step step2(ItemStreamReader genreReader, ItemProcessor filterDuplicateGenres, ItemWriter writeGenresToDB) {
+        AdaptiveCompletionPolicy completionPolicy = adaptiveCompletionPolicy();
+        SimpleStepBuilder step = stepBuilderFactory.get("step2")
+                .chunk(completionPolicy)
                 .reader(genreReader)
                 .processor(filterDuplicateGenres)
                 .writer(writeGenresToDB)
-                .listener(new ItemReadListener() {
-                    public void beforeRead() {
-                        logger.info("Начало чтения жанров");
-                    }
+                .listener((ItemWriteListener) completionPolicy);
+        step.listener((StepExecutionListener) failFastSplitListener);
+        withExistingKeyFilter(step, existingGenres());
+        return withImportListeners(step, "жанров").build();
+    }
 
-                    public void afterRead(Object o) {
-                        logger.info("Конец чтения жанров");
-                    }
+    @Bean
+    public ItemStreamReader<Book> bookReader() {
+        if (importProperties.getReader() == MAPPED) {
+            MappedCsvItemReader<Book> reader = mappedReader("bookItemReader", csvBookMapper.bookRowMapper());
+            reader.setSaveState(!importProperties.getBookStep().isMultiThreaded());
+            return reader;
+        }
+        ByteRangeLineItemReader<Book> reader = lineReader("bookItemReader", csvBookMapper::mapBook);
+        reader.setSaveState(!importProperties.getBookStep().isMultiThreaded());
+        return reader;
+    }
 
-                    public void onReadError(Exception e) {
-                        logger.info("Ошибка чтения жанров");
-                    }
-                })
-                .listener(new ItemWriteListener() {
-                    public void beforeWrite(List list) {
-                        logger.info("Начало записи жанров");
-                    }
+    @Bean
+    @JobScope
+    public DimensionCache dimensionCache() {
+        return new DimensionCache(authorRepository, genreRepository, importProperties.getDimensionCache().getMaxEntries());
+    }
 
-                    public void afterWrite(List list) {
-                        logger.info("Конец записи жанров");
-                    }
+    @Bean
+    public ItemProcessor csvToMongoProcessor(DimensionCache dimensionCache) {
+        return new ResolveBookReferencesProcessor(dimensionCache);
+    }
 
-                    public void onWriteError(Exception e, List list) {
-                        logger.info("Ошибка записи жанров");
-                    }
-                })
-                .listener(new ItemProcessListener() {
-                    public void beforeProcess(Object o) {
-                        logger.info("Начало обработки жанров");
-                    }
+    @Bean
+    public ItemWriter<Book> writerToMongo() {
+        return bookUpsertWriter();
+    }
 
-                    public void afterProcess(Object o, Object o2) {
-                        logger.info("Конец обработки жанров");
-                    }
+    @Bean
+    public TaskExecutor bookStepTaskExecutor() {
+        ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+        taskExecutor.setCorePoolSize(importProperties.getBookStep().getThreads());
+        taskExecutor.setMaxPoolSize(importProperties.getBookStep().getThreads());
+        taskExecutor.setThreadNamePrefix("book-step-");
+        taskExecutor.setTaskDecorator(new JobContextTaskDecorator());
+        return taskExecutor;
+    }
 
-                    public void onProcessError(Object o, Exception e) {
-                        logger.info("Ошбка обработки жанров");
-                    }
-                })
-                .listener(new ChunkListener() {
-                    public void beforeChunk(ChunkContext chunkContext) {
-                        logger.info("Начало пачки жанров");
-                    }
+    @Bean
+    public Step step3(
+            ItemStreamReader bookReader,
+            ItemProcessor csvToMongoProcessor,
+            ItemWriter writerToMongo,
+            TaskExecutor bookStepTaskExecutor
+    ) {
+        AdaptiveCompletionPolicy completionPolicy = adaptiveCompletionPolicy();
+        SimpleStepBuilder step = stepBuilderFactory.get("step3")
+                .chunk(completionPolicy);
+        if (importProperties.getBookStep().isMultiThreaded()) {
+            SynchronizedItemStreamReader synchronizedBookReader = new SynchronizedItemStreamReader();
+            synchronizedBookReader.setDelegate(bookReader);
+            step.reader(synchronizedBookReader)
+                    .taskExecutor(bookStepTaskExecutor)
+                    .throttleLimit(importProperties.getBookStep().getThrottleLimit());
+        } else {
+            step.reader(bookReader);
+        }
+        step.processor(csvToMongoProcessor)
+                .writer(writerToMongo)
+                .listener((ItemWriteListener) completionPolicy);
+        return withImportListeners(step, "книг").build();
+    }
 
-                    public void afterChunk(ChunkContext chunkContext) {
-                        logger.info("Конец пачки жанров");
-                    }
+    @Bean
+    public TaskExecutor dimensionSplitTaskExecutor() {
+        ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+        taskExecutor.setCorePoolSize(2);
+        taskExecutor.setMaxPoolSize(2);
+        taskExecutor.setThreadNamePrefix("dimension-step-");
+        taskExecutor.setTaskDecorator(new JobContextTaskDecorator());
+        return taskExecutor;
+    }
 
-                    public void afterChunkError(ChunkContext chunkContext) {
-                        logger.info("Ошибка пачки жанров");
-                    }
-                })
+    // authors and genres do not depend on each other, the book step starts once both are imported
+    @Bean
+    public Job importBookJob(Step step1, Step step2, Step step3, TaskExecutor dimensionSplitTaskExecutor) {
+        Flow authorFlow = new FlowBuilder<SimpleFlow>("authorFlow").start(step1).build();
+        Flow genreFlow = new FlowBuilder<SimpleFlow>("genreFlow").start(step2).build();
+        Flow dimensionFlow = new FlowBuilder<SimpleFlow>("dimensionFlow")
+                .split(dimensionSplitTaskExecutor)
+                .add(authorFlow, genreFlow)
+                .build();
+        return jobBuilderFactory.get("importBookJob")
+                .incrementer(new RunIdIncrementer())
+                .start(dimensionFlow)
+                .next(step3)
+                .end()
+                .listener(jobLoggingListener())
                 .build();
     }
 
     @Bean
-    public FlatFileItemReader<Book> bookReader() {
-        return new FlatFileItemReaderBuilder<Book>()
-                .name("bookItemReader")
-                .resource(new FileSystemResource("data.csv"))
-                .delimited()
-                .delimiter(";")
-                .names(new String[]{"name", "publishedDate", "authors", "genre"})
-                .fieldSetMapper(fieldSet -> {
-                    Book book = new Book();
-                    String name = fieldSet.readString("name");
-                    book.setName(name);
-                    Date publishedDate = fieldSet.readDate("publishedDate");
-                    book.setPublishedDate(publishedDate);
-                    String authorsLine = fieldSet.readString("authors");
-                    Set<Author> authors = Arrays.stream(authorsLine.split(","))
-                            .map(authorName -> {
-                                String[] authorData = authorName.trim().split(" ");
-                                return new Author(authorData[0], authorData[1], Country.NONE);
-                            }).collect(Collectors.toSet());
-                    book.setAuthors(authors);
-                    String genreLine = fieldSet.readString("genre");
-                    book.setGenre(new Genre(genreLine));
-                    return book;
-                })
+    @JobScope
+    public ThreadPoolTaskExecutor asyncBookTaskExecutor(@Value("#{jobParameters['asyncConcurrency']}") Integer concurrency) {
+        int threads = concurrency != null ? concurrency : importProperties.getAsync().getConcurrency();
+        ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+        taskExecutor.setCorePoolSize(threads);
+        taskExecutor.setMaxPoolSize(threads);
+        taskExecutor.setQueueCapacity(importProperties.getAsync().getChunkSize());
+        taskExecutor.setThreadNamePrefix("async-book-");
+        taskExecutor.setTaskDecorator(new JobContextTaskDecorator());
+        return taskExecutor;
+    }
+
+    @Bean
+    public Step asyncStep3(
+            ItemStreamReader<Book> bookReader,
+            ItemProcessor<Book, Book> csvToMongoProcessor,
+            ItemWriter<Book> writerToMongo,
+            ThreadPoolTaskExecutor asyncBookTaskExecutor
+    ) {
+        AsyncItemProcessor<Book, Book> asyncProcessor = new AsyncItemProcessor<>();
+        asyncProcessor.setDelegate(csvToMongoProcessor);
+        asyncProcessor.setTaskExecutor(asyncBookTaskExecutor);
+
+        AsyncItemWriter<Book> asyncWriter = new AsyncItemWriter<>();
+        asyncWriter.setDelegate(writerToMongo);
+
+        SimpleStepBuilder<Book, Future<Book>> step = stepBuilderFactory.get("asyncStep3")
+                .<Book, Future<Book>>chunk(importProperties.getAsync().getChunkSize())
+                .reader(bookReader)
+                .processor(asyncProcessor)
+                .writer(asyncWriter)
+                .listener((Object) csvToMongoProcessor);
+        return withImportListeners(step, "книг").build();
+    }
+
+    @Bean
+    public Job asyncImportBookJob(Step step1, Step step2, Step asyncStep3) {
+        return jobBuilderFactory.get("asyncImportBookJob")
+                .incrementer(new RunIdIncrementer())
+                .flow(step1)
+                .next(step2)
+                .next(asyncStep3)
+                .end()
+                .listener(jobLoggingListener())
                 .build();
     }
 
     @Bean
-    public ItemProcessor csvToMongoProcessor() {
-        return (ItemProcessor<Book, Book>) book -> {
-            book.calculateAge();
-            Genre genre = book.getGenre();
-            Optional<Genre> genreFromRepo = genreRepository.findByName(genre.getName());
-            if (genreFromRepo.isPresent()) {
-                book.setGenre(genreFromRepo.get());
-            } else {
-                throw new Exception("No genre in DB: " + genre.getName());
-            }
+    public ItemStreamReader<Book> singlePassBookReader() {
+        if (importProperties.getReader() == MAPPED) {
+            return mappedReader("singlePassBookItemReader", csvBookMapper.bookRowMapper());
+        }
+        return lineReader("singlePassBookItemReader", csvBookMapper::mapBook);
+    }
 
-            Set<Author> authorsWithId = new HashSet<>();
-            for (Author author : book.getAuthors()) {
-                Optional<Author> authorFromRepo = authorRepository.findByNameAndSurname(author.getName(), author.getSurname());
-                Author authorWithId = authorFromRepo.orElseThrow(() -> new Exception("No author in DB: " + author));
-                authorsWithId.add(authorWithId);
-            }
-            book.setAuthors(authorsWithId);
-            return book;
-        };
+    @Bean
+    public ItemWriter<Book> singlePassBookWriter() {
+        return new SinglePassBookWriter(
+                authorRepository,
+                genreRepository,
+                authorUpsertWriter(),
+                genreUpsertWriter(),
+                bookUpsertWriter()
+        );
     }
 
     @Bean
-    public ItemWriter<Book> writerToMongo() {
-        return list -> bookRepository.saveAll(list);
+    public Step singlePassStep(ItemStreamReader singlePassBookReader, ItemWriter singlePassBookWriter) {
+        AdaptiveCompletionPolicy completionPolicy = adaptiveCompletionPolicy();
+        SimpleStepBuilder step = stepBuilderFactory.get("singlePassStep")
+                .chunk(completionPolicy)
+                .reader(singlePassBookReader)
+                .writer(singlePassBookWriter)
+                .listener((ItemWriteListener) completionPolicy);
+        return withImportListeners(step, "книг").build();
     }
 
     @Bean
-    public Step step3(FlatFileItemReader bookReader, ItemProcessor csvToMongoProcessor, ItemWriter writerToMongo) {
-        return stepBuilderFactory.get("step3")
-                .chunk(3)
-                .reader(bookReader)
-                .processor(csvToMongoProcessor)
-                .writer(writerToMongo)
-                .listener(new ItemReadListener() {
-                    public void beforeRead() {
-                        logger.info("Начало чтения книг");
-                    }
+    public Job singlePassImportBookJob(Step singlePassStep) {
+        return jobBuilderFactory.get("singlePassImportBookJob")
+                .incrementer(new RunIdIncrementer())
+                .flow(singlePassStep)
+                .end()
+                .listener(jobLoggingListener())
+                .build();
+    }
 
-                    public void afterRead(Object o) {
-                        logger.info("Конец чтения книг");
-                    }
+    @Bean
+    public ItemStreamReader<Book> deltaBookReader() {
+        if (importProperties.getReader() == MAPPED) {
+            return mappedReader("deltaBookItemReader", csvBookMapper.bookRowMapper());
+        }
+        return lineReader("deltaBookItemReader", csvBookMapper::mapBook);
+    }
 
-                    public void onReadError(Exception e) {
-                        logger.info("Ошибка чтения книг");
-                    }
-                })
-                .listener(new ItemWriteListener() {
-                    public void beforeWrite(List list) {
-                        logger.info("Начало записи книг");
-                    }
+    @Bean
+    public ItemWriter<Book> deltaBookWriter() {
+        return new DeltaBookWriter(mongoTemplate, singlePassBookWriter());
+    }
 
-                    public void afterWrite(List list) {
-                        logger.info("Конец записи книг");
-                    }
+    @Bean
+    public Step deltaStep(ItemStreamReader deltaBookReader, ItemWriter deltaBookWriter) {
+        AdaptiveCompletionPolicy completionPolicy = adaptiveCompletionPolicy();
+        SimpleStepBuilder step = stepBuilderFactory.get("deltaStep")
+                .chunk(completionPolicy)
+                .reader(deltaBookReader)
+                .writer(deltaBookWriter)
+                .listener((ItemWriteListener) completionPolicy);
+        return withImportListeners(step, "книг").build();
+    }
 
-                    public void onWriteError(Exception e, List list) {
-                        logger.info("Ошибка записи книг");
-                    }
-                })
-                .listener(new ItemProcessListener() {
-                    public void beforeProcess(Object o) {
-                        logger.info("Начало обработки книг");
-                    }
+    @Bean
+    public Step deltaRemovalStep() {
+        return stepBuilderFactory.get("deltaRemovalStep")
+                .tasklet(new DeltaRemovalTasklet(mongoTemplate, importProperties.getDelta().getRemovalBatchSize()))
+                .listener((StepExecutionListener) importMetricsListener)
+                .build();
+    }
 
-                    public void afterProcess(Object o, Object o2) {
-                        logger.info("Конец обработки книг");
-                    }
+    @Bean
+    public Job deltaImportBookJob(Step deltaStep, Step deltaRemovalStep) {
+        return jobBuilderFactory.get(DELTA_IMPORT_JOB)
+                .incrementer(new RunIdIncrementer())
+                .flow(deltaStep)
+                .next(deltaRemovalStep)
+                .end()
+                .listener(jobLoggingListener())
+                .build();
+    }
 
-                    public void onProcessError(Object o, Exception e) {
-                        logger.info("Ошбка обработки книг");
-                    }
+    @Bean
+    public StagingCollections stagingCollections() {
+        return new StagingCollections(mongoTemplate);
+    }
+
+    @Bean
+    public ItemStreamReader<Book> stagingBookReader() {
+        if (importProperties.getReader() == MAPPED) {
+            return mappedReader("stagingBookItemReader", csvBookMapper.bookRowMapper());
+        }
+        return lineReader("stagingBookItemReader", csvBookMapper::mapBook);
+    }
+
+    @Bean
+    public ItemWriter<Book> stagingBookWriter() {
+        return new StagingBookWriter(mongoTemplate, stagingCollections(), importProperties.getDimensionCache().getMaxEntries());
+    }
+
+    @Bean
+    public Step stagingPrepareStep() {
+        return stepBuilderFactory.get("stagingPrepareStep")
+                .tasklet((contribution, chunkContext) -> {
+                    stagingCollections().drop();
+                    return RepeatStatus.FINISHED;
                 })
-                .listener(new ChunkListener() {
-                    public void beforeChunk(ChunkContext chunkContext) {
-                        logger.info("Начало пачки книг");
-                    }
+                .build();
+    }
 
-                    public void afterChunk(ChunkContext chunkContext) {
-                        logger.info("Конец пачки книг");
-                    }
+    @Bean
+    public Step stagingLoadStep(ItemStreamReader stagingBookReader, ItemWriter stagingBookWriter) {
+        AdaptiveCompletionPolicy completionPolicy = adaptiveCompletionPolicy();
+        SimpleStepBuilder step = stepBuilderFactory.get("stagingLoadStep")
+                .chunk(completionPolicy)
+                .reader(stagingBookReader)
+                .writer(stagingBookWriter)
+                .listener((ItemWriteListener) completionPolicy);
+        return withImportListeners(step, "книг").build();
+    }
 
-                    public void afterChunkError(ChunkContext chunkContext) {
-                        logger.info("Ошибка пачки книг");
-                    }
+    @Bean
+    public Step stagingIndexStep() {
+        return stepBuilderFactory.get("stagingIndexStep")
+                .tasklet((contribution, chunkContext) -> {
+                    stagingCollections().createIndexes();
+                    return RepeatStatus.FINISHED;
                 })
                 .build();
     }
 
     @Bean
-    public Job importBookJob(Step step1, Step step2, Step step3) {
-        return jobBuilderFactory.get("importBookJob")
+    public StagingSwapTasklet stagingSwapTasklet() {
+        return new StagingSwapTasklet(stagingCollections());
+    }
+
+    @Bean
+    public Step stagingSwapStep() {
+        return stepBuilderFactory.get("stagingSwapStep")
+                .tasklet(stagingSwapTasklet())
+                .build();
+    }
+
+    @Bean
+    public Job stagingImportBookJob(
+            Step stagingPrepareStep,
+            Step stagingLoadStep,
+            Step stagingIndexStep,
+            Step stagingSwapStep
+    ) {
+        return jobBuilderFactory.get(STAGING_IMPORT_JOB)
                 .incrementer(new RunIdIncrementer())
-                .flow(step1)
-                .next(step2)
-                .next(step3)
+                .flow(stagingPrepareStep)
+                .next(stagingLoadStep)
+                .next(stagingIndexStep)
+                .next(stagingSwapStep)
                 .end()
-                .listener(new JobExecutionListener() {
-                    @Override
-                    public void beforeJob(JobExecution jobExecution) {
-                        logger.info("Начало job");
-                    }
+                .listener(jobLoggingListener())
+                .build();
+    }
 
-                    @Override
-                    public void afterJob(JobExecution jobExecution) {
-                        logger.info("Конец job");
-                    }
-                })
+    @Bean
+    public LineAlignedRangePartitioner dataFilePartitioner() {
+        return new LineAlignedRangePartitioner(inputResource());
+    }
+
+    @Bean
+    public TaskExecutor partitionTaskExecutor() {
+        ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+        taskExecutor.setCorePoolSize(importProperties.getPartition().getThreads());
+        taskExecutor.setMaxPoolSize(importProperties.getPartition().getThreads());
+        taskExecutor.setThreadNamePrefix("partition-");
+        taskExecutor.setTaskDecorator(new JobContextTaskDecorator());
+        return taskExecutor;
+    }
+
+    @Bean
+    @StepScope
+    public ByteRangeLineItemReader<Set<Author>> authorRangeReader(
+            @Value("#{stepExecutionContext['startOffset']}") Long startOffset,
+            @Value("#{stepExecutionContext['endOffset']}") Long endOffset
+    ) {
+        ByteRangeLineItemReader<Set<Author>> reader = new ByteRangeLineItemReader<>(inputResource(),
+                lineMapper(fieldSet -> csvBookMapper.parseAuthors(fieldSet.readString("authors"))), startOffset, endOffset);
+        reader.setName("authorRangeReader");
+        return reader;
+    }
+
+    @Bean
+    @StepScope
+    public ByteRangeLineItemReader<Genre> genreRangeReader(
+            @Value("#{stepExecutionContext['startOffset']}") Long startOffset,
+            @Value("#{stepExecutionContext['endOffset']}") Long endOffset
+    ) {
+        ByteRangeLineItemReader<Genre> reader = new ByteRangeLineItemReader<>(inputResource(),
+                lineMapper(fieldSet -> valueInterner.genre(fieldSet.readString("genre"))), startOffset, endOffset);
+        reader.setName("genreRangeReader");
+        return reader;
+    }
+
+    @Bean
+    @StepScope
+    public ByteRangeLineItemReader<Book> bookRangeReader(
+            @Value("#{stepExecutionContext['startOffset']}") Long startOffset,
+            @Value("#{stepExecutionContext['endOffset']}") Long endOffset
+    ) {
+        ByteRangeLineItemReader<Book> reader = new ByteRangeLineItemReader<>(inputResource(),
+                lineMapper(csvBookMapper::mapBook), startOffset, endOffset);
+        reader.setName("bookRangeReader");
+        return reader;
+    }
+
+    @Bean
+    public Step authorPartitionStep(ItemStreamReader authorRangeReader, ItemWriter writeAuthorsToDB) {
+        AdaptiveCompletionPolicy completionPolicy = adaptiveCompletionPolicy();
+        SimpleStepBuilder step = stepBuilderFactory.get("authorPartitionStep")
+                .chunk(completionPolicy)
+                .reader(authorRangeReader)
+                .writer(writeAuthorsToDB)
+                .listener((ItemWriteListener) completionPolicy);
+        withExistingKeyFilter(step, existingAuthors());
+        return withImportListeners(step, "авторов").build();
+    }
+
+    @Bean
+    public Step genrePartitionStep(ItemStreamReader genreRangeReader, ItemWriter writeGenresToDB) {
+        AdaptiveCompletionPolicy completionPolicy = adaptiveCompletionPolicy();
+        SimpleStepBuilder step = stepBuilderFactory.get("genrePartitionStep")
+                .chunk(completionPolicy)
+                .reader(genreRangeReader)
+                .writer(writeGenresToDB)
+                .listener((ItemWriteListener) completionPolicy);
+        withExistingKeyFilter(step, existingGenres());
+        return withImportListeners(step, "жанров").build();
+    }
+
+    @Bean
+    public Step bookPartitionStep(ItemStreamReader bookRangeReader, ItemProcessor csvToMongoProcessor, ItemWriter writerToMongo) {
+        AdaptiveCompletionPolicy completionPolicy = adaptiveCompletionPolicy();
+        SimpleStepBuilder step = stepBuilderFactory.get("bookPartitionStep")
+                .chunk(completionPolicy)
+                .reader(bookRangeReader)
+                .processor(csvToMongoProcessor)
+                .writer(writerToMongo)
+                .listener((ItemWriteListener) completionPolicy);
+        return withImportListeners(step, "книг").build();
+    }
+
+    @Bean
+    public Job partitionedImportBookJob(
+            LineAlignedRangePartitioner dataFilePartitioner,
+            TaskExecutor partitionTaskExecutor,
+            Step authorPartitionStep,
+            Step genrePartitionStep,
+            Step bookPartitionStep
+    ) {
+        return jobBuilderFactory.get("partitionedImportBookJob")
+                .incrementer(new RunIdIncrementer())
+                .flow(partitionedStep("partitionedStep1", authorPartitionStep, dataFilePartitioner, partitionTaskExecutor))
+                .next(partitionedStep("partitionedStep2", genrePartitionStep, dataFilePartitioner, partitionTaskExecutor))
+                .next(partitionedStep("partitionedStep3", bookPartitionStep, dataFilePartitioner, partitionTaskExecutor))
+                .end()
+                .listener(jobLoggingListener())
                 .build();
     }
+
+    private FileSystemResource inputResource() {
+        return new FileSystemResource(importProperties.getInput());
+    }
+
+    private Step partitionedStep(String name, Step workerStep, Partitioner partitioner, TaskExecutor taskExecutor) {
+        return stepBuilderFactory.get(name)
+                .partitioner(workerStep.getName(), partitioner)
+                .step(workerStep)
+                .gridSize(importProperties.getPartition().getGridSize())
+                .taskExecutor(taskExecutor)
+                .build();
+    }
+
+    private <T> LineMapper<T> lineMapper(FieldSetMapper<T> fieldSetMapper) {
+        DelimitedLineTokenizer tokenizer = new DelimitedLineTokenizer(";");
+        tokenizer.setNames(new String[]{"name", "publishedDate", "authors", "genre"});
+        DefaultLineMapper<T> lineMapper = new DefaultLineMapper<>();
+        lineMapper.setLineTokenizer(tokenizer);
+        lineMapper.setFieldSetMapper(fieldSetMapper);
+        return lineMapper;
+    }
+
+    private SimpleStepBuilder withImportListeners(SimpleStepBuilder step, String subject) {
+        registerListener(step, importMetricsListener);
+        step.listener((StepExecutionListener) importMetricsListener);
+        if (importProperties.isVerboseLogging()) {
+            registerListener(step, new VerboseLoggingListener(subject));
+        }
+        return step;
+    }
+
+    private <L extends ItemReadListener & ItemProcessListener & ItemWriteListener & ChunkListener> void registerListener(
+            SimpleStepBuilder step,
+            L listener
+    ) {
+        step.listener((ItemReadListener) listener)
+                .listener((ItemProcessListener) listener)
+                .listener((ItemWriteListener) listener)
+                .listener((ChunkListener) listener);
+    }
+
+    private AdaptiveCompletionPolicy adaptiveCompletionPolicy() {
+        ImportProperties.Chunk chunk = importProperties.getChunk();
+        return new AdaptiveCompletionPolicy(chunk.getMinSize(), chunk.getMaxSize(), chunk.getTargetLatency(),
+                importMetricsListener::recordChunkSize);
+    }
+
+    private JobExecutionListener jobLoggingListener() {
+        return new JobExecutionListener() {
+            @Override
+            public void beforeJob(JobExecution jobExecution) {
+                valueInterner.clear();
+                logger.info("Начало job");
+            }
+
+            @Override
+            public void afterJob(JobExecution jobExecution) {
+                valueInterner.clear();
+                lookupCaches.invalidateAll();
+                logger.info("Конец job");
+            }
+        };
+    }
+
+    private ItemWriter<Author> authorUpsertWriter() {
+        return new BulkUpsertItemWriter<>(mongoTemplate, Author.class, BatchConfiguration::authorKey, false);
+    }
+
+    private ItemWriter<Genre> genreUpsertWriter() {
+        return new BulkUpsertItemWriter<>(mongoTemplate, Genre.class, BatchConfiguration::genreKey, false);
+    }
+
+    private static Query authorKey(Author author) {
+        return query(where("name").is(author.getName()).and("surname").is(author.getSurname()));
+    }
+
+    private static Query genreKey(Genre genre) {
+        return query(where("name").is(genre.getName()));
+    }
+
+    // without the filter every key is upserted, the filter is only loaded by the steps it is registered on
+    private void withExistingKeyFilter(SimpleStepBuilder step, ExistingKeyFilter<?> existingKeys) {
+        if (importProperties.getExistingKeys().isFilterEnabled()) {
+            step.listener((Object) existingKeys);
+        }
+    }
+
+    private ItemWriter<Book> bookUpsertWriter() {
+        return new BulkUpsertItemWriter<>(mongoTemplate, Book.class,
+                book -> query(where("name").is(book.getName())), true);
+    }
+
+    private <T> ByteRangeLineItemReader<T> lineReader(String name, FieldSetMapper<T> fieldSetMapper) {
+        ByteRangeLineItemReader<T> reader = new ByteRangeLineItemReader<>(inputResource(), lineMapper(fieldSetMapper));
+        reader.setName(name);
+        return reader;
+    }
+
+    private <T> MappedCsvItemReader<T> mappedReader(String name, CsvRowMapper<T> rowMapper) {
+        MappedCsvItemReader<T> reader = new MappedCsvItemReader<>(inputResource(), rowMapper, ';');
+        reader.setName(name);
+        return reader;
+    }
 }
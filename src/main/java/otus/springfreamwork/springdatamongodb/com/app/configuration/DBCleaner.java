@@ -1,15 +1,22 @@
 package otus.springfreamwork.springdatamongodb.com.app.configuration;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.stereotype.Service;
+import otus.springfreamwork.springdatamongodb.com.app.batch.RowHash;
 import otus.springfreamwork.springdatamongodb.domain.dao.AuthorRepository;
 import otus.springfreamwork.springdatamongodb.domain.dao.BookRepository;
 import otus.springfreamwork.springdatamongodb.domain.dao.CommentRepository;
 import otus.springfreamwork.springdatamongodb.domain.dao.GenreRepository;
 
 import javax.annotation.PostConstruct;
+import java.util.Arrays;
+import java.util.List;
 
 @Service
+@ConditionalOnProperty(prefix = "import", name = "clean-on-startup", havingValue = "true", matchIfMissing = true)
 public class DBCleaner {
 
     @Autowired
@@ -24,11 +31,24 @@ public class DBCleaner {
     @Autowired
     private CommentRepository commentRepository;
 
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${spring.batch.job.names:}")
+    private String jobNames;
+
     @PostConstruct
     public void cleanDB() {
+        // the staging import replaces the catalog only when it completes, until then the old one stays readable,
+        // the delta import compares rows with the hashes of the previous run
+        List<String> jobs = Arrays.asList(jobNames.split(","));
+        if (jobs.contains(BatchConfiguration.STAGING_IMPORT_JOB) || jobs.contains(BatchConfiguration.DELTA_IMPORT_JOB)) {
+            return;
+        }
         commentRepository.deleteAll();
         bookRepository.deleteAll();
         authorRepository.deleteAll();
         genreRepository.deleteAll();
+        mongoTemplate.dropCollection(RowHash.class);
     }
 }
@@ -0,0 +1,280 @@
+package otus.springfreamwork.springdatamongodb.com.app.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "import")
+public class ImportProperties {
+
+    private String input = "data.csv";
+
+    private ReaderType reader = ReaderType.FLAT_FILE;
+
+    private boolean cleanOnStartup = true;
+
+    private boolean verboseLogging = false;
+
+    private final Chunk chunk = new Chunk();
+
+    private final DimensionCache dimensionCache = new DimensionCache();
+
+    private final BookStep bookStep = new BookStep();
+
+    private final Partition partition = new Partition();
+
+    private final Async async = new Async();
+
+    private final Metrics metrics = new Metrics();
+
+    private final Delta delta = new Delta();
+
+    private final ExistingKeys existingKeys = new ExistingKeys();
+
+    public String getInput() {
+        return input;
+    }
+
+    public void setInput(String input) {
+        this.input = input;
+    }
+
+    public ReaderType getReader() {
+        return reader;
+    }
+
+    public void setReader(ReaderType reader) {
+        this.reader = reader;
+    }
+
+    public boolean isCleanOnStartup() {
+        return cleanOnStartup;
+    }
+
+    public void setCleanOnStartup(boolean cleanOnStartup) {
+        this.cleanOnStartup = cleanOnStartup;
+    }
+
+    public boolean isVerboseLogging() {
+        return verboseLogging;
+    }
+
+    public void setVerboseLogging(boolean verboseLogging) {
+        this.verboseLogging = verboseLogging;
+    }
+
+    public Chunk getChunk() {
+        return chunk;
+    }
+
+    public DimensionCache getDimensionCache() {
+        return dimensionCache;
+    }
+
+    public BookStep getBookStep() {
+        return bookStep;
+    }
+
+    public Partition getPartition() {
+        return partition;
+    }
+
+    public Async getAsync() {
+        return async;
+    }
+
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    public Delta getDelta() {
+        return delta;
+    }
+
+    public ExistingKeys getExistingKeys() {
+        return existingKeys;
+    }
+
+    public enum ReaderType {
+        FLAT_FILE,
+        MAPPED
+    }
+
+    public static class Chunk {
+
+        private int minSize = 3;
+
+        private int maxSize = 1000;
+
+        private Duration targetLatency = Duration.ofMillis(200);
+
+        public int getMinSize() {
+            return minSize;
+        }
+
+        public void setMinSize(int minSize) {
+            this.minSize = minSize;
+        }
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public Duration getTargetLatency() {
+            return targetLatency;
+        }
+
+        public void setTargetLatency(Duration targetLatency) {
+            this.targetLatency = targetLatency;
+        }
+    }
+
+    public static class DimensionCache {
+
+        private int maxEntries = 100_000;
+
+        public int getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+    }
+
+    public static class BookStep {
+
+        private int threads = 1;
+
+        private int throttleLimit = 4;
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(int threads) {
+            this.threads = threads;
+        }
+
+        public int getThrottleLimit() {
+            return throttleLimit;
+        }
+
+        public void setThrottleLimit(int throttleLimit) {
+            this.throttleLimit = throttleLimit;
+        }
+
+        public boolean isMultiThreaded() {
+            return threads > 1;
+        }
+    }
+
+    public static class Partition {
+
+        private int gridSize = 4;
+
+        private int threads = 4;
+
+        public int getGridSize() {
+            return gridSize;
+        }
+
+        public void setGridSize(int gridSize) {
+            this.gridSize = gridSize;
+        }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(int threads) {
+            this.threads = threads;
+        }
+    }
+
+    public static class Async {
+
+        private int concurrency = 4;
+
+        private int chunkSize = 20;
+
+        public int getConcurrency() {
+            return concurrency;
+        }
+
+        public void setConcurrency(int concurrency) {
+            this.concurrency = concurrency;
+        }
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+    }
+
+    public static class Metrics {
+
+        private Duration logInterval = Duration.ofSeconds(10);
+
+        public Duration getLogInterval() {
+            return logInterval;
+        }
+
+        public void setLogInterval(Duration logInterval) {
+            this.logInterval = logInterval;
+        }
+    }
+
+    public static class Delta {
+
+        private int removalBatchSize = 1000;
+
+        public int getRemovalBatchSize() {
+            return removalBatchSize;
+        }
+
+        public void setRemovalBatchSize(int removalBatchSize) {
+            this.removalBatchSize = removalBatchSize;
+        }
+    }
+
+    public static class ExistingKeys {
+
+        private boolean filterEnabled = true;
+
+        private long expectedKeys = 100_000;
+
+        private double falsePositiveRate = 0.01;
+
+        public boolean isFilterEnabled() {
+            return filterEnabled;
+        }
+
+        public void setFilterEnabled(boolean filterEnabled) {
+            this.filterEnabled = filterEnabled;
+        }
+
+        public long getExpectedKeys() {
+            return expectedKeys;
+        }
+
+        public void setExpectedKeys(long expectedKeys) {
+            this.expectedKeys = expectedKeys;
+        }
+
+        public double getFalsePositiveRate() {
+            return falsePositiveRate;
+        }
+
+        public void setFalsePositiveRate(double falsePositiveRate) {
+            this.falsePositiveRate = falsePositiveRate;
+        }
+    }
+}
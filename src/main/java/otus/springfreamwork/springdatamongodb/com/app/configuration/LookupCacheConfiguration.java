@@ -0,0 +1,64 @@
+package otus.springfreamwork.springdatamongodb.com.app.configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import otus.springfreamwork.springdatamongodb.com.app.servicies.LookupCaches;
+import otus.springfreamwork.springdatamongodb.domain.dao.AuthorRepository;
+import otus.springfreamwork.springdatamongodb.domain.dao.BookRepository;
+import otus.springfreamwork.springdatamongodb.domain.dao.GenreRepository;
+
+import java.util.Optional;
+
+import static otus.springfreamwork.springdatamongodb.com.app.servicies.LookupCaches.authorKey;
+
+@Configuration
+@EnableConfigurationProperties(LookupCacheProperties.class)
+public class LookupCacheConfiguration {
+
+    private final Logger logger = LoggerFactory.getLogger(LookupCacheConfiguration.class);
+
+    @Autowired
+    private LookupCacheProperties lookupCacheProperties;
+
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @Autowired
+    private GenreRepository genreRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Bean
+    public LookupCaches lookupCaches(MeterRegistry meterRegistry) {
+        LookupCaches lookupCaches = new LookupCaches(lookupCacheProperties.getMaxEntries(), lookupCacheProperties.getTtl());
+        lookupCaches.bindTo(meterRegistry);
+        return lookupCaches;
+    }
+
+    // runs after the import job, so the caches start with the imported catalog
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp(ApplicationReadyEvent event) {
+        int warmUpSize = Math.min(lookupCacheProperties.getWarmUpSize(), lookupCacheProperties.getMaxEntries());
+        if (warmUpSize <= 0) {
+            return;
+        }
+        LookupCaches lookupCaches = event.getApplicationContext().getBean(LookupCaches.class);
+        genreRepository.findAllByOrderByNameAsc(PageRequest.of(0, warmUpSize))
+                .forEach(genre -> lookupCaches.genres().put(genre.getName(), Optional.of(genre)));
+        authorRepository.findAllByOrderByIdAsc(PageRequest.of(0, warmUpSize))
+                .forEach(author -> lookupCaches.authors().put(authorKey(author.getName(), author.getSurname()), Optional.of(author)));
+        bookRepository.findPageAfterName(null, warmUpSize)
+                .forEach(book -> lookupCaches.books().put(book.getName(), Optional.of(book)));
+        logger.info("Кэш поиска прогрет: жанров {}, авторов {}, книг {}",
+                lookupCaches.genres().size(), lookupCaches.authors().size(), lookupCaches.books().size());
+    }
+}
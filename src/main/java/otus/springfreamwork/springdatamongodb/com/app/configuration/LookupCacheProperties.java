@@ -0,0 +1,39 @@
+package otus.springfreamwork.springdatamongodb.com.app.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "lookup-cache")
+public class LookupCacheProperties {
+
+    private int maxEntries = 10_000;
+
+    private Duration ttl = Duration.ofMinutes(5);
+
+    private int warmUpSize = 0;
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public void setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    public void setTtl(Duration ttl) {
+        this.ttl = ttl;
+    }
+
+    public int getWarmUpSize() {
+        return warmUpSize;
+    }
+
+    public void setWarmUpSize(int warmUpSize) {
+        this.warmUpSize = warmUpSize;
+    }
+}
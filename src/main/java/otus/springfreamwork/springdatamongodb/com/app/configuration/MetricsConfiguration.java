@@ -0,0 +1,23 @@
+package otus.springfreamwork.springdatamongodb.com.app.configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import otus.springfreamwork.springdatamongodb.com.app.batch.ImportMetricsListener;
+
+@Configuration
+public class MetricsConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public MeterRegistry meterRegistry() {
+        return new SimpleMeterRegistry();
+    }
+
+    @Bean
+    public ImportMetricsListener importMetricsListener(MeterRegistry meterRegistry, ImportProperties importProperties) {
+        return new ImportMetricsListener(meterRegistry, importProperties.getMetrics().getLogInterval());
+    }
+}
@@ -1,14 +1,20 @@
 package otus.springfreamwork.springdatamongodb.com.app.servicies;
 
+import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import otus.springfreamwork.springdatamongodb.domain.app.services.AuthorService;
 import otus.springfreamwork.springdatamongodb.domain.dao.AuthorRepository;
 import otus.springfreamwork.springdatamongodb.domain.model.Author;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
+import static otus.springfreamwork.springdatamongodb.com.app.servicies.LookupCaches.authorKey;
 import static otus.springfreamwork.springdatamongodb.domain.model.Country.RUSSIA;
 
 
@@ -16,18 +22,25 @@ import static otus.springfreamwork.springdatamongodb.domain.model.Country.RUSSIA
 public class AuthorServiceImpl implements AuthorService {
 
     private final AuthorRepository authorRepository;
+    private final LookupCaches lookupCaches;
 
-    @Autowired
     public AuthorServiceImpl(AuthorRepository authorRepository) {
+        this(authorRepository, LookupCaches.disabled());
+    }
+
+    @Autowired
+    public AuthorServiceImpl(AuthorRepository authorRepository, LookupCaches lookupCaches) {
         this.authorRepository = authorRepository;
+        this.lookupCaches = lookupCaches;
     }
 
     @Override
     public String createAuthorByNameAndSurname(String name, String surname) {
-        Optional<Author> author = authorRepository.findByNameAndSurname(name, surname);
+        Optional<Author> author = findAuthor(name, surname);
         String result;
         if (!author.isPresent()) {
             authorRepository.save(new Author(name, surname, RUSSIA));
+            lookupCaches.authors().invalidate(authorKey(name, surname));
             result = "Автор успешно создан";
         } else {
             result = "Автор уже в базе";
@@ -48,6 +61,40 @@ public class AuthorServiceImpl implements AuthorService {
         return stringBuilder.toString();
     }
 
+    @Override
+    public void streamAllAuthors(Consumer<String> output) {
+        try (Stream<Author> authors = authorRepository.streamAllBy()) {
+            Iterator<Author> iterator = authors.iterator();
+            if (!iterator.hasNext()) {
+                output.accept("Нет авторов в базе");
+                return;
+            }
+            output.accept("Список авторов:");
+            iterator.forEachRemaining(author -> output.accept(author.toString()));
+        }
+    }
+
+    @Override
+    public String getAuthorsPage(String pageToken, int pageSize) {
+        if (pageToken != null && !ObjectId.isValid(pageToken)) {
+            return "Некорректный токен страницы";
+        }
+        List<Author> authors = pageToken == null
+                ? authorRepository.findAllByOrderByIdAsc(PageRequest.of(0, pageSize))
+                : authorRepository.findByIdGreaterThanOrderByIdAsc(new ObjectId(pageToken), PageRequest.of(0, pageSize));
+        StringBuilder stringBuilder = new StringBuilder();
+        if (authors.isEmpty()) {
+            stringBuilder.append(pageToken == null ? "Нет авторов в базе" : "Больше нет авторов в базе");
+        } else {
+            stringBuilder.append("Страница авторов:");
+            authors.forEach(author -> stringBuilder.append("\n").append(author));
+            if (authors.size() == pageSize) {
+                stringBuilder.append("\nСледующая страница: ").append(authors.get(pageSize - 1).getId());
+            }
+        }
+        return stringBuilder.toString();
+    }
+
     @Override
     public String countAuthors() {
         return "Количество авторов в базе: " + authorRepository.count();
@@ -55,7 +102,7 @@ public class AuthorServiceImpl implements AuthorService {
 
     @Override
     public String getAuthor(String name, String surname) {
-        Author author = authorRepository.findByNameAndSurname(name, surname).orElse(null);
+        Author author = findAuthor(name, surname).orElse(null);
         String result;
         if (author == null) {
             result = "Не найдено автора в базе";
@@ -67,14 +114,20 @@ public class AuthorServiceImpl implements AuthorService {
 
     @Override
     public String deleteAuthor(String name, String surname) {
-        Author author = authorRepository.findByNameAndSurname(name, surname).orElse(null);
+        Author author = findAuthor(name, surname).orElse(null);
         String result;
         if (author != null) {
             authorRepository.deleteByNameAndSurname(name, surname);
+            lookupCaches.authors().invalidate(authorKey(name, surname));
+            lookupCaches.invalidateBooks();
             result = "Автор успешно удален";
         } else {
             result = "Не найдено автора в базе для удаления";
         }
         return result;
     }
+
+    private Optional<Author> findAuthor(String name, String surname) {
+        return lookupCaches.authors().get(authorKey(name, surname), key -> authorRepository.findByNameAndSurname(name, surname));
+    }
 }
@@ -1,6 +1,5 @@
 package otus.springfreamwork.springdatamongodb.com.app.servicies;
 
-import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import otus.springfreamwork.springdatamongodb.domain.app.services.BookService;
@@ -15,10 +14,14 @@ import otus.springfreamwork.springdatamongodb.domain.model.Genre;
 
 import java.util.Collections;
 import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
+import static otus.springfreamwork.springdatamongodb.com.app.servicies.LookupCaches.authorKey;
 import static otus.springfreamwork.springdatamongodb.domain.model.Country.RUSSIA;
 
 @Service
@@ -27,43 +30,67 @@ public class BookServiceImpl implements BookService {
     private final AuthorRepository authorRepository;
     private final GenreRepository genreRepository;
     private final CommentRepository commentRepository;
+    private final LookupCaches lookupCaches;
 
-    @Autowired
     public BookServiceImpl(
             BookRepository bookRepository,
             AuthorRepository authorRepository,
             GenreRepository genreRepository,
             CommentRepository commentRepository
+    ) {
+        this(bookRepository, authorRepository, genreRepository, commentRepository, LookupCaches.disabled());
+    }
+
+    @Autowired
+    public BookServiceImpl(
+            BookRepository bookRepository,
+            AuthorRepository authorRepository,
+            GenreRepository genreRepository,
+            CommentRepository commentRepository,
+            LookupCaches lookupCaches
     ) {
         this.bookRepository = bookRepository;
         this.authorRepository = authorRepository;
         this.genreRepository = genreRepository;
         this.commentRepository = commentRepository;
+        this.lookupCaches = lookupCaches;
     }
 
     @Override
     public String createBookByNameAndAuthorAndGenre(String bookName, String name, String surname, String genreName) {
 
-        Optional<Book> book = bookRepository.findByName(bookName);
+        Optional<Book> book = findBook(bookName);
         if (book.isPresent()) {
             return "Книга уже в базе";
         }
 
         StringBuilder result = new StringBuilder();
-        Author author = authorRepository.findByNameAndSurname(name, surname).orElse(null);
-        if (author == null) {
+        Author author = lookupCaches.authors()
+                .get(authorKey(name, surname), key -> authorRepository.findByNameAndSurname(name, surname))
+                .orElse(null);
+        boolean newAuthor = author == null;
+        if (newAuthor) {
             author = new Author(name, surname, RUSSIA);
             result.append("Создан автор").append("\n");
         }
 
-        Genre genre = genreRepository.findByName(genreName).orElse(null);
-        if (genre == null) {
+        Genre genre = lookupCaches.genres().get(genreName, genreRepository::findByName).orElse(null);
+        boolean newGenre = genre == null;
+        if (newGenre) {
             genre = new Genre(genreName);
             result.append("Создан жанр").append("\n");
         }
 
         Map<Integer, String> parts = Collections.singletonMap(1, "partOne");
         bookRepository.save(new Book(bookName, new Date(2018, 4, 10), parts, Collections.singleton(author), genre));
+        // the new author and genre are written by the book save, their cached misses are dropped only after it
+        if (newAuthor) {
+            lookupCaches.authors().invalidate(authorKey(name, surname));
+        }
+        if (newGenre) {
+            lookupCaches.genres().invalidate(genreName);
+        }
+        lookupCaches.books().invalidate(bookName);
         return result.append("Книга успешно создана").toString();
     }
 
@@ -80,6 +107,35 @@ public class BookServiceImpl implements BookService {
         return stringBuilder.toString();
     }
 
+    @Override
+    public void streamAllBooks(Consumer<String> output) {
+        try (Stream<Book> books = bookRepository.streamAllBy()) {
+            Iterator<Book> iterator = books.iterator();
+            if (!iterator.hasNext()) {
+                output.accept("Нет книг в базе");
+                return;
+            }
+            output.accept("Список книг:");
+            iterator.forEachRemaining(book -> output.accept(book.toString()));
+        }
+    }
+
+    @Override
+    public String getBooksPage(String pageToken, int pageSize) {
+        List<Book> books = bookRepository.findPageAfterName(pageToken, pageSize);
+        StringBuilder stringBuilder = new StringBuilder();
+        if (books.isEmpty()) {
+            stringBuilder.append(pageToken == null ? "Нет книг в базе" : "Больше нет книг в базе");
+        } else {
+            stringBuilder.append("Страница книг:");
+            books.forEach(book -> stringBuilder.append("\n").append(book));
+            if (books.size() == pageSize) {
+                stringBuilder.append("\nСледующая страница: ").append(books.get(pageSize - 1).getName());
+            }
+        }
+        return stringBuilder.toString();
+    }
+
     @Override
     public String countBooks() {
         return "Количество книг в базе: " + bookRepository.count();
@@ -87,10 +143,11 @@ public class BookServiceImpl implements BookService {
 
     @Override
     public String deleteBook(String name) {
-        Book book = bookRepository.findByName(name).orElse(null);
+        Book book = findBook(name).orElse(null);
         String result;
         if (book != null) {
             bookRepository.deleteByName(name);
+            lookupCaches.books().invalidate(name);
             result = "Книга успешно удалена";
         } else {
             result = "Не найдено книги в базе для удаления";
@@ -100,7 +157,7 @@ public class BookServiceImpl implements BookService {
 
     @Override
     public String getBook(String name) {
-        Book book = bookRepository.findByName(name).orElse(null);
+        Book book = findBook(name).orElse(null);
         String result;
         if (book == null) {
             result = "Не найдено книги в базе";
@@ -113,11 +170,10 @@ public class BookServiceImpl implements BookService {
     @Override
     public String getBooksByAuthorNameAndSurname(String name, String surname) {
         StringBuilder stringBuilder = new StringBuilder();
-        Author author = authorRepository.findByNameAndSurname(name, surname).orElse(null);
-        if (author == null) {
+        List<Book> books = bookRepository.findBooksOfAuthor(name, surname).orElse(null);
+        if (books == null) {
             stringBuilder.append("В базе нет такого автора");
         } else {
-            List<Book> books = bookRepository.getByAuthorId(new ObjectId(author.getId()));
             if (books.isEmpty()) {
                 stringBuilder.append("Список книг для выбранного автора пуст");
             } else {
@@ -131,11 +187,10 @@ public class BookServiceImpl implements BookService {
     @Override
     public String getBooksByGenreName(String name) {
         StringBuilder stringBuilder = new StringBuilder();
-        Genre genre = genreRepository.findByName(name).orElse(null);
-        if (genre == null) {
+        List<Book> books = bookRepository.findBooksOfGenre(name).orElse(null);
+        if (books == null) {
             stringBuilder.append("В базе нет такого жанра");
         } else {
-            List<Book> books = bookRepository.getByGenreId(new ObjectId(genre.getId()));
             if (books.isEmpty()) {
                 stringBuilder.append("Список книг для выбранного жанра пуст");
             } else {
@@ -149,9 +204,9 @@ public class BookServiceImpl implements BookService {
     @Override
     public String getCommentsOnBook(String name) {
         StringBuilder stringBuilder = new StringBuilder();
-        Optional<Book> book = bookRepository.findByName(name);
-        if (book.isPresent()) {
-            List<Comment> comments = commentRepository.getByBookId(new ObjectId(book.get().getId()));
+        Optional<List<Comment>> bookComments = commentRepository.findCommentsOnBook(name);
+        if (bookComments.isPresent()) {
+            List<Comment> comments = bookComments.get();
             if (comments.isEmpty()) {
                 stringBuilder.append("Нет комментариев на книгу");
             } else {
@@ -164,4 +219,8 @@ public class BookServiceImpl implements BookService {
 
         return stringBuilder.toString();
     }
+
+    private Optional<Book> findBook(String name) {
+        return lookupCaches.books().get(name, bookRepository::findByName);
+    }
 }
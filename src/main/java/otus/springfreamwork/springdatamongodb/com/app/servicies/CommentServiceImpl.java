@@ -1,5 +1,6 @@
 package otus.springfreamwork.springdatamongodb.com.app.servicies;
 
+import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import otus.springfreamwork.springdatamongodb.domain.app.services.CommentService;
@@ -9,27 +10,40 @@ import otus.springfreamwork.springdatamongodb.domain.model.Book;
 import otus.springfreamwork.springdatamongodb.domain.model.Comment;
 
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class CommentServiceImpl implements CommentService {
 
     private final CommentRepository commentRepository;
     private final BookRepository bookRepository;
+    private final LookupCaches lookupCaches;
 
-    @Autowired
     public CommentServiceImpl(
             CommentRepository commentRepository,
             BookRepository bookRepository
+    ) {
+        this(commentRepository, bookRepository, LookupCaches.disabled());
+    }
+
+    @Autowired
+    public CommentServiceImpl(
+            CommentRepository commentRepository,
+            BookRepository bookRepository,
+            LookupCaches lookupCaches
     ) {
         this.commentRepository = commentRepository;
         this.bookRepository = bookRepository;
+        this.lookupCaches = lookupCaches;
     }
 
     @Override
     public String createComment(String username, String commentText, String bookName) {
-        Optional<Book> book = bookRepository.findByName(bookName);
+        Optional<Book> book = lookupCaches.books().get(bookName, bookRepository::findByName);
         String result;
         if (!book.isPresent()) {
             result = "Не найдено книги, комментарий не создан";
@@ -55,6 +69,38 @@ public class CommentServiceImpl implements CommentService {
         return stringBuilder.toString();
     }
 
+    @Override
+    public void streamAllComments(Consumer<String> output) {
+        try (Stream<Comment> comments = commentRepository.streamAllBy()) {
+            Iterator<Comment> iterator = comments.iterator();
+            if (!iterator.hasNext()) {
+                output.accept("Нет комментариев в базе");
+                return;
+            }
+            output.accept("Список комментариев:");
+            iterator.forEachRemaining(comment -> output.accept(comment.toString()));
+        }
+    }
+
+    @Override
+    public String getCommentsPage(String pageToken, int pageSize) {
+        if (pageToken != null && !ObjectId.isValid(pageToken)) {
+            return "Некорректный токен страницы";
+        }
+        List<Comment> comments = commentRepository.findPageAfterId(pageToken == null ? null : new ObjectId(pageToken), pageSize);
+        StringBuilder stringBuilder = new StringBuilder();
+        if (comments.isEmpty()) {
+            stringBuilder.append(pageToken == null ? "Нет комментариев в базе" : "Больше нет комментариев в базе");
+        } else {
+            stringBuilder.append("Страница комментариев:");
+            comments.forEach(comment -> stringBuilder.append("\n").append(comment));
+            if (comments.size() == pageSize) {
+                stringBuilder.append("\nСледующая страница: ").append(comments.get(pageSize - 1).getId());
+            }
+        }
+        return stringBuilder.toString();
+    }
+
     @Override
     public String countComments() {
         return "Количество комментариев в базе: " + commentRepository.count();
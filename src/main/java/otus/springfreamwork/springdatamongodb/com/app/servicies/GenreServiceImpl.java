@@ -1,31 +1,42 @@
 package otus.springfreamwork.springdatamongodb.com.app.servicies;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import otus.springfreamwork.springdatamongodb.domain.app.services.GenreService;
 import otus.springfreamwork.springdatamongodb.domain.dao.GenreRepository;
 import otus.springfreamwork.springdatamongodb.domain.model.Genre;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class GenreServiceImpl implements GenreService {
 
     private final GenreRepository genreRepository;
+    private final LookupCaches lookupCaches;
 
-    @Autowired
     public GenreServiceImpl(GenreRepository genreRepository) {
+        this(genreRepository, LookupCaches.disabled());
+    }
+
+    @Autowired
+    public GenreServiceImpl(GenreRepository genreRepository, LookupCaches lookupCaches) {
         this.genreRepository = genreRepository;
+        this.lookupCaches = lookupCaches;
     }
 
     @Override
     public String createGenreByName(String name) {
-        Optional<Genre> genreByName = genreRepository.findByName(name);
+        Optional<Genre> genreByName = findGenre(name);
         String result;
         if (!genreByName.isPresent()) {
             Genre genre = new Genre(name);
             genreRepository.save(genre);
+            lookupCaches.genres().invalidate(name);
             result = "Жанр успешно создан";
         } else {
             result = "Жанр уже в базе";
@@ -46,6 +57,37 @@ public class GenreServiceImpl implements GenreService {
         return stringBuilder.toString();
     }
 
+    @Override
+    public void streamAllGenres(Consumer<String> output) {
+        try (Stream<Genre> genres = genreRepository.streamAllBy()) {
+            Iterator<Genre> iterator = genres.iterator();
+            if (!iterator.hasNext()) {
+                output.accept("Нет жанров в базе");
+                return;
+            }
+            output.accept("Список жанров:");
+            iterator.forEachRemaining(genre -> output.accept(genre.toString()));
+        }
+    }
+
+    @Override
+    public String getGenresPage(String pageToken, int pageSize) {
+        List<Genre> genres = pageToken == null
+                ? genreRepository.findAllByOrderByNameAsc(PageRequest.of(0, pageSize))
+                : genreRepository.findByNameGreaterThanOrderByNameAsc(pageToken, PageRequest.of(0, pageSize));
+        StringBuilder stringBuilder = new StringBuilder();
+        if (genres.isEmpty()) {
+            stringBuilder.append(pageToken == null ? "Нет жанров в базе" : "Больше нет жанров в базе");
+        } else {
+            stringBuilder.append("Страница жанров:");
+            genres.forEach(genre -> stringBuilder.append("\n").append(genre));
+            if (genres.size() == pageSize) {
+                stringBuilder.append("\nСледующая страница: ").append(genres.get(pageSize - 1).getName());
+            }
+        }
+        return stringBuilder.toString();
+    }
+
     @Override
     public String countGenres() {
         return "Количество жанров в базе: " + genreRepository.count();
@@ -53,10 +95,12 @@ public class GenreServiceImpl implements GenreService {
 
     @Override
     public String deleteGenre(String name) {
-        Genre genre = genreRepository.findByName(name).orElse(null);
+        Genre genre = findGenre(name).orElse(null);
         String result;
         if (genre != null) {
             genreRepository.deleteByName(name);
+            lookupCaches.genres().invalidate(name);
+            lookupCaches.invalidateBooks();
             result = "Жанр успешно удален";
         } else {
             result = "Не найдено жанра в базе для удаления";
@@ -66,7 +110,7 @@ public class GenreServiceImpl implements GenreService {
 
     @Override
     public String getGenre(String name) {
-        Genre genre = genreRepository.findByName(name).orElse(null);
+        Genre genre = findGenre(name).orElse(null);
         String result;
         if (genre == null) {
             result = "Не найдено жанра в базе";
@@ -75,4 +119,8 @@ public class GenreServiceImpl implements GenreService {
         }
         return result;
     }
+
+    private Optional<Genre> findGenre(String name) {
+        return lookupCaches.genres().get(name, genreRepository::findByName);
+    }
 }
@@ -0,0 +1,114 @@
+package otus.springfreamwork.springdatamongodb.com.app.servicies;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+// caches misses as well as found values, both expire after the ttl and the least recently used entry
+// is evicted once the cache is full
+public class LookupCache<K, V> {
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final LongSupplier nanoTime;
+
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long hits;
+    private long misses;
+    private long evictions;
+    // bumped by every invalidation, a lookup that raced with one does not store its stale result
+    private long version;
+
+    public LookupCache(int maxEntries, Duration ttl) {
+        this(maxEntries, ttl, System::nanoTime);
+    }
+
+    public LookupCache(int maxEntries, Duration ttl, LongSupplier nanoTime) {
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttl.toNanos();
+        this.nanoTime = nanoTime;
+    }
+
+    public Optional<V> get(K key, Function<K, Optional<V>> loader) {
+        long loadVersion;
+        synchronized (this) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null) {
+                if (entry.expiresAt - nanoTime.getAsLong() > 0) {
+                    hits++;
+                    return entry.value;
+                }
+                entries.remove(key);
+                evictions++;
+            }
+            misses++;
+            loadVersion = version;
+        }
+        Optional<V> value = loader.apply(key);
+        synchronized (this) {
+            if (loadVersion == version) {
+                put(key, value);
+            }
+        }
+        return value;
+    }
+
+    public synchronized void put(K key, Optional<V> value) {
+        if (maxEntries <= 0 || ttlNanos <= 0) {
+            return;
+        }
+        entries.put(key, new Entry<>(value, nanoTime.getAsLong() + ttlNanos));
+        Iterator<Map.Entry<K, Entry<V>>> eldest = entries.entrySet().iterator();
+        while (entries.size() > maxEntries) {
+            eldest.next();
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    public synchronized void invalidate(K key) {
+        version++;
+        entries.remove(key);
+    }
+
+    public synchronized void invalidateAll() {
+        version++;
+        entries.clear();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public synchronized double getHitRatio() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private static class Entry<V> {
+
+        private final Optional<V> value;
+        private final long expiresAt;
+
+        private Entry(Optional<V> value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package otus.springfreamwork.springdatamongodb.com.app.servicies;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import otus.springfreamwork.springdatamongodb.domain.model.Author;
+import otus.springfreamwork.springdatamongodb.domain.model.Book;
+import otus.springfreamwork.springdatamongodb.domain.model.Genre;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+public class LookupCaches {
+
+    private final LookupCache<List<String>, Author> authors;
+    private final LookupCache<String, Genre> genres;
+    private final LookupCache<String, Book> books;
+
+    public LookupCaches(int maxEntries, Duration ttl) {
+        this.authors = new LookupCache<>(maxEntries, ttl);
+        this.genres = new LookupCache<>(maxEntries, ttl);
+        this.books = new LookupCache<>(maxEntries, ttl);
+    }
+
+    // every lookup goes to the repository, used by services created without the shared caches
+    public static LookupCaches disabled() {
+        return new LookupCaches(0, Duration.ZERO);
+    }
+
+    public static List<String> authorKey(String name, String surname) {
+        return Arrays.asList(name, surname);
+    }
+
+    public LookupCache<List<String>, Author> authors() {
+        return authors;
+    }
+
+    public LookupCache<String, Genre> genres() {
+        return genres;
+    }
+
+    public LookupCache<String, Book> books() {
+        return books;
+    }
+
+    // books hold references to authors and genres, so removing either drops the cached books too
+    public void invalidateBooks() {
+        books.invalidateAll();
+    }
+
+    public void invalidateAll() {
+        authors.invalidateAll();
+        genres.invalidateAll();
+        books.invalidateAll();
+    }
+
+    public void bindTo(MeterRegistry registry) {
+        bindTo(registry, "authors", authors);
+        bindTo(registry, "genres", genres);
+        bindTo(registry, "books", books);
+    }
+
+    private static void bindTo(MeterRegistry registry, String name, LookupCache<?, ?> cache) {
+        FunctionCounter.builder("lookup.cache.hits", cache, LookupCache::getHits)
+                .tag("cache", name).register(registry);
+        FunctionCounter.builder("lookup.cache.misses", cache, LookupCache::getMisses)
+                .tag("cache", name).register(registry);
+        FunctionCounter.builder("lookup.cache.evictions", cache, LookupCache::getEvictions)
+                .tag("cache", name).register(registry);
+        Gauge.builder("lookup.cache.hit.ratio", cache, LookupCache::getHitRatio)
+                .tag("cache", name).register(registry);
+        Gauge.builder("lookup.cache.size", cache, LookupCache::size)
+                .tag("cache", name).register(registry);
+    }
+}
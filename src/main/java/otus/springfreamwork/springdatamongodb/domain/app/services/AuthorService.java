@@ -1,11 +1,17 @@
 package otus.springfreamwork.springdatamongodb.domain.app.services;
 
+import java.util.function.Consumer;
+
 public interface AuthorService {
 
     String createAuthorByNameAndSurname(String name, String surname);
 
     String getAllAuthors();
 
+    void streamAllAuthors(Consumer<String> output);
+
+    String getAuthorsPage(String pageToken, int pageSize);
+
     String countAuthors();
 
     String getAuthor(String name, String surname);
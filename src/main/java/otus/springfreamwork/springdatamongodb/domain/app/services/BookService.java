@@ -1,10 +1,16 @@
 package otus.springfreamwork.springdatamongodb.domain.app.services;
 
+import java.util.function.Consumer;
+
 public interface BookService {
     String createBookByNameAndAuthorAndGenre(String boonName, String name, String surname, String genreName);
 
     String getAllBooks();
 
+    void streamAllBooks(Consumer<String> output);
+
+    String getBooksPage(String pageToken, int pageSize);
+
     String countBooks();
 
     String deleteBook(String name);
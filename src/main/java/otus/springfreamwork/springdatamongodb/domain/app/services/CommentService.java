@@ -1,10 +1,16 @@
 package otus.springfreamwork.springdatamongodb.domain.app.services;
 
+import java.util.function.Consumer;
+
 public interface CommentService {
     String createComment(String username, String commentText, String bookName);
 
     String getAllComments();
 
+    void streamAllComments(Consumer<String> output);
+
+    String getCommentsPage(String pageToken, int pageSize);
+
     String countComments();
 
     String deleteUsernameComments(String usernanme);
@@ -1,11 +1,17 @@
 package otus.springfreamwork.springdatamongodb.domain.app.services;
 
+import java.util.function.Consumer;
+
 public interface GenreService {
 
     String createGenreByName(String name);
 
     String getAllGenres();
 
+    void streamAllGenres(Consumer<String> output);
+
+    String getGenresPage(String pageToken, int pageSize);
+
     String countGenres();
 
     String deleteGenre(String name);
@@ -1,13 +1,23 @@
 package otus.springfreamwork.springdatamongodb.domain.dao;
 
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import otus.springfreamwork.springdatamongodb.domain.model.Author;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface AuthorRepository extends MongoRepository<Author, String> {
+public interface AuthorRepository extends MongoRepository<Author, String>, AuthorRepositoryCustom {
 
     Optional<Author> findByNameAndSurname(String name, String surname);
 
     void deleteByNameAndSurname(String name, String surname);
+
+    Stream<Author> streamAllBy();
+
+    List<Author> findAllByOrderByIdAsc(Pageable pageable);
+
+    List<Author> findByIdGreaterThanOrderByIdAsc(ObjectId id, Pageable pageable);
 }
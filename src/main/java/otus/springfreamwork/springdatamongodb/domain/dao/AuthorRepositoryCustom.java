@@ -0,0 +1,11 @@
+package otus.springfreamwork.springdatamongodb.domain.dao;
+
+import otus.springfreamwork.springdatamongodb.domain.model.Author;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface AuthorRepositoryCustom {
+
+    List<Author> findAllByNameAndSurnameIn(Collection<Author> authors);
+}
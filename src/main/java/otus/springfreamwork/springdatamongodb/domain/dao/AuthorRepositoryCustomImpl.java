@@ -0,0 +1,32 @@
+package otus.springfreamwork.springdatamongodb.domain.dao;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import otus.springfreamwork.springdatamongodb.domain.model.Author;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+public class AuthorRepositoryCustomImpl implements AuthorRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Autowired
+    public AuthorRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public List<Author> findAllByNameAndSurnameIn(Collection<Author> authors) {
+        if (authors.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Criteria[] nameAndSurname = authors.stream()
+                .map(author -> Criteria.where("name").is(author.getName()).and("surname").is(author.getSurname()))
+                .toArray(Criteria[]::new);
+        return mongoTemplate.find(new Query(new Criteria().orOperator(nameAndSurname)), Author.class);
+    }
+}
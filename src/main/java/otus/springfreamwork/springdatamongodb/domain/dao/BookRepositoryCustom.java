@@ -0,0 +1,25 @@
+package otus.springfreamwork.springdatamongodb.domain.dao;
+
+import org.bson.types.ObjectId;
+import otus.springfreamwork.springdatamongodb.domain.model.Book;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public interface BookRepositoryCustom {
+
+    List<Book> findAll();
+
+    List<Book> getByAuthorId(ObjectId authorId);
+
+    List<Book> getByGenreId(ObjectId genreId);
+
+    Optional<List<Book>> findBooksOfAuthor(String name, String surname);
+
+    Optional<List<Book>> findBooksOfGenre(String genreName);
+
+    Stream<Book> streamAllBy();
+
+    List<Book> findPageAfterName(String name, int pageSize);
+}
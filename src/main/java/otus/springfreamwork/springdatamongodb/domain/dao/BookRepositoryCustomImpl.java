@@ -0,0 +1,69 @@
+package otus.springfreamwork.springdatamongodb.domain.dao;
+
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import otus.springfreamwork.springdatamongodb.domain.model.Author;
+import otus.springfreamwork.springdatamongodb.domain.model.Book;
+import otus.springfreamwork.springdatamongodb.domain.model.Genre;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+public class BookRepositoryCustomImpl implements BookRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Autowired
+    public BookRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public List<Book> findAll() {
+        // read in batches, so no single $in query carries the ids referenced by the whole collection
+        try (Stream<Book> books = streamAllBy()) {
+            return books.collect(Collectors.toList());
+        }
+    }
+
+    @Override
+    public List<Book> getByAuthorId(ObjectId authorId) {
+        return new DBRefBatchReader(mongoTemplate).findBooks(query(where("authors.$id").is(authorId)));
+    }
+
+    @Override
+    public List<Book> getByGenreId(ObjectId genreId) {
+        return new DBRefBatchReader(mongoTemplate).findBooks(query(where("genre.$id").is(genreId)));
+    }
+
+    @Override
+    public Optional<List<Book>> findBooksOfAuthor(String name, String surname) {
+        return new DBRefBatchReader(mongoTemplate)
+                .findBooksReferencing(Author.class, where("name").is(name).and("surname").is(surname), "authors.$id");
+    }
+
+    @Override
+    public Optional<List<Book>> findBooksOfGenre(String genreName) {
+        return new DBRefBatchReader(mongoTemplate)
+                .findBooksReferencing(Genre.class, where("name").is(genreName), "genre.$id");
+    }
+
+    @Override
+    public Stream<Book> streamAllBy() {
+        return DBRefBatchReader.streamAll(mongoTemplate, Book.class, DBRefBatchReader::readBooks);
+    }
+
+    @Override
+    public List<Book> findPageAfterName(String name, int pageSize) {
+        Query query = name == null ? new Query() : query(where("name").gt(name));
+        return new DBRefBatchReader(mongoTemplate).findBooks(query.with(Sort.by("name")).limit(pageSize));
+    }
+}
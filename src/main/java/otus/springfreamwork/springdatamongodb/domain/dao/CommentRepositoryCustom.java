@@ -0,0 +1,23 @@
+package otus.springfreamwork.springdatamongodb.domain.dao;
+
+import org.bson.types.ObjectId;
+import otus.springfreamwork.springdatamongodb.domain.model.Comment;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public interface CommentRepositoryCustom {
+
+    List<Comment> findAll();
+
+    List<Comment> findAllByUsername(String username);
+
+    List<Comment> getByBookId(ObjectId bookId);
+
+    Optional<List<Comment>> findCommentsOnBook(String bookName);
+
+    Stream<Comment> streamAllBy();
+
+    List<Comment> findPageAfterId(ObjectId id, int pageSize);
+}
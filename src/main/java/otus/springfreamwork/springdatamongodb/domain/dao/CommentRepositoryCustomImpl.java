@@ -0,0 +1,60 @@
+package otus.springfreamwork.springdatamongodb.domain.dao;
+
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import otus.springfreamwork.springdatamongodb.domain.model.Comment;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+public class CommentRepositoryCustomImpl implements CommentRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Autowired
+    public CommentRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public List<Comment> findAll() {
+        // read in batches, so no single $in query carries the ids referenced by the whole collection
+        try (Stream<Comment> comments = streamAllBy()) {
+            return comments.collect(Collectors.toList());
+        }
+    }
+
+    @Override
+    public List<Comment> findAllByUsername(String username) {
+        return new DBRefBatchReader(mongoTemplate).findComments(query(where("username").is(username)));
+    }
+
+    @Override
+    public List<Comment> getByBookId(ObjectId bookId) {
+        return new DBRefBatchReader(mongoTemplate).findComments(query(where("books.$id").is(bookId)));
+    }
+
+    @Override
+    public Optional<List<Comment>> findCommentsOnBook(String bookName) {
+        return new DBRefBatchReader(mongoTemplate).findCommentsOnBook(bookName);
+    }
+
+    @Override
+    public Stream<Comment> streamAllBy() {
+        return DBRefBatchReader.streamAll(mongoTemplate, Comment.class, DBRefBatchReader::readComments);
+    }
+
+    @Override
+    public List<Comment> findPageAfterId(ObjectId id, int pageSize) {
+        Query query = id == null ? new Query() : query(where("_id").gt(id));
+        return new DBRefBatchReader(mongoTemplate).findComments(query.with(Sort.by("_id")).limit(pageSize));
+    }
+}
@@ -0,0 +1,258 @@
+package otus.springfreamwork.springdatamongodb.domain.dao;
+
+import com.mongodb.DBRef;
+import com.mongodb.client.MongoCursor;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.data.util.StreamUtils;
+import otus.springfreamwork.springdatamongodb.domain.model.Author;
+import otus.springfreamwork.springdatamongodb.domain.model.Book;
+import otus.springfreamwork.springdatamongodb.domain.model.Comment;
+import otus.springfreamwork.springdatamongodb.domain.model.Genre;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.limit;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.match;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.newAggregation;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.project;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.unwind;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+// reads documents of one request with every referenced collection resolved by a single $in query,
+// the instance is an identity map, so a document referenced many times is read and mapped once
+class DBRefBatchReader {
+
+    private static final int STREAM_BATCH_SIZE = 100;
+    // ids sent in one $in query, keeps the query document bounded when a request references many documents
+    private static final int MAX_IDS_PER_QUERY = 1000;
+
+    private final MongoTemplate mongoTemplate;
+
+    private final Map<Object, Author> authors = new HashMap<>();
+    private final Map<Object, Genre> genres = new HashMap<>();
+    private final Map<Object, Book> books = new HashMap<>();
+
+    DBRefBatchReader(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    List<Book> findBooks(Query query) {
+        return readBooks(mongoTemplate.find(query, Document.class, mongoTemplate.getCollectionName(Book.class)));
+    }
+
+    List<Comment> findComments(Query query) {
+        return readComments(mongoTemplate.find(query, Document.class, mongoTemplate.getCollectionName(Comment.class)));
+    }
+
+    // the owner and the books referencing it are read by one aggregation, empty when there is no such owner
+    Optional<List<Book>> findBooksReferencing(Class<?> ownerClass, Criteria owner, String referenceField) {
+        Aggregation aggregation = newAggregation(
+                match(owner),
+                limit(1),
+                lookupReferencing(mongoTemplate.getCollectionName(Book.class), referenceField, "book"),
+                unwind("book", true),
+                project("book").andExclude("_id"));
+        List<Book> books = new ArrayList<>();
+        boolean found = readUnwound(aggregation, ownerClass, "book", ownerDocument -> { },
+                documents -> books.addAll(readBooks(documents)));
+        return found ? Optional.of(books) : Optional.empty();
+    }
+
+    // the book is read with its comments, so the comments do not need to fetch it again
+    Optional<List<Comment>> findCommentsOnBook(String bookName) {
+        Aggregation aggregation = newAggregation(
+                match(where("name").is(bookName)),
+                limit(1),
+                lookupReferencing(mongoTemplate.getCollectionName(Comment.class), "books.$id", "comment"),
+                unwind("comment", true));
+        List<Comment> comments = new ArrayList<>();
+        boolean found = readUnwound(aggregation, Book.class, "comment", book -> readBooks(Collections.singletonList(book)),
+                documents -> comments.addAll(readComments(documents)));
+        return found ? Optional.of(comments) : Optional.empty();
+    }
+
+    // the cursor is read in batches, each batch gets its own identity map to keep memory bounded
+    static <T> Stream<T> streamAll(MongoTemplate mongoTemplate, Class<?> entityClass,
+                                   BiFunction<DBRefBatchReader, List<Document>, List<T>> reader) {
+        MongoCursor<Document> cursor = mongoTemplate.getCollection(mongoTemplate.getCollectionName(entityClass))
+                .find()
+                .batchSize(STREAM_BATCH_SIZE)
+                .iterator();
+        Iterator<List<T>> batches = new Iterator<List<T>>() {
+            @Override
+            public boolean hasNext() {
+                return cursor.hasNext();
+            }
+
+            @Override
+            public List<T> next() {
+                List<Document> documents = new ArrayList<>(STREAM_BATCH_SIZE);
+                while (cursor.hasNext() && documents.size() < STREAM_BATCH_SIZE) {
+                    documents.add(cursor.next());
+                }
+                return reader.apply(new DBRefBatchReader(mongoTemplate), documents);
+            }
+        };
+        return StreamUtils.createStreamFromIterator(batches)
+                .flatMap(List::stream)
+                .onClose(cursor::close);
+    }
+
+    List<Comment> readComments(List<Document> documents) {
+        Set<Object> bookIds = new LinkedHashSet<>();
+        for (Document document : documents) {
+            collectIds(document.get("books"), books, bookIds);
+        }
+        for (List<Object> ids : chunks(bookIds)) {
+            readBooks(mongoTemplate.find(query(where("_id").in(ids)), Document.class,
+                    mongoTemplate.getCollectionName(Book.class)));
+        }
+
+        List<Comment> comments = new ArrayList<>(documents.size());
+        for (Document document : documents) {
+            Object bookRefs = document.remove("books");
+            Comment comment = mongoTemplate.getConverter().read(Comment.class, document);
+            if (bookRefs != null) {
+                comment.setBooks(resolveAll(bookRefs, books));
+            }
+            comments.add(comment);
+        }
+        return comments;
+    }
+
+    List<Book> readBooks(List<Document> documents) {
+        Set<Object> authorIds = new LinkedHashSet<>();
+        Set<Object> genreIds = new LinkedHashSet<>();
+        for (Document document : documents) {
+            collectIds(document.get("authors"), authors, authorIds);
+            collectIds(document.get("genre"), genres, genreIds);
+        }
+        fetch(authorIds, Author.class, Author::getId, authors);
+        fetch(genreIds, Genre.class, Genre::getId, genres);
+
+        List<Book> result = new ArrayList<>(documents.size());
+        for (Document document : documents) {
+            Object id = document.get("_id");
+            Object authorRefs = document.remove("authors");
+            Object genreRef = document.remove("genre");
+            Book book = mongoTemplate.getConverter().read(Book.class, document);
+            if (authorRefs != null) {
+                book.setAuthors(resolveAll(authorRefs, authors));
+            }
+            if (genreRef != null) {
+                book.setGenre(genres.get(((DBRef) genreRef).getId()));
+            }
+            books.put(id, book);
+            result.add(book);
+        }
+        return result;
+    }
+
+    // Aggregation.lookup() maps the "$id" of a DBRef path away, so the stage is written as is
+    private static AggregationOperation lookupReferencing(String from, String referenceField, String as) {
+        return context -> new Document("$lookup", new Document("from", from)
+                .append("localField", "_id")
+                .append("foreignField", referenceField)
+                .append("as", as));
+    }
+
+    // the lookup is unwound into one result per referencing document, so a genre with many books is read
+    // as a cursor instead of one result over the 16 MB document limit. An owner without references still
+    // gives one result without the unwound field, no result at all means there is no such owner
+    private boolean readUnwound(Aggregation aggregation, Class<?> ownerClass, String field,
+                                Consumer<Document> ownerReader, Consumer<List<Document>> batchReader) {
+        boolean found = false;
+        List<Document> batch = new ArrayList<>(STREAM_BATCH_SIZE);
+        try (CloseableIterator<Document> results = mongoTemplate.aggregateStream(aggregation,
+                mongoTemplate.getCollectionName(ownerClass), Document.class)) {
+            while (results.hasNext()) {
+                Document result = results.next();
+                Document unwound = (Document) result.remove(field);
+                if (!found) {
+                    ownerReader.accept(result);
+                    found = true;
+                }
+                if (unwound != null) {
+                    batch.add(unwound);
+                }
+                if (batch.size() == STREAM_BATCH_SIZE) {
+                    batchReader.accept(batch);
+                    batch = new ArrayList<>(STREAM_BATCH_SIZE);
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            batchReader.accept(batch);
+        }
+        return found;
+    }
+
+    private static void collectIds(Object refs, Map<Object, ?> resolved, Set<Object> ids) {
+        if (refs instanceof DBRef) {
+            Object id = ((DBRef) refs).getId();
+            if (!resolved.containsKey(id)) {
+                ids.add(id);
+            }
+        } else if (refs instanceof List) {
+            for (Object ref : (List<?>) refs) {
+                collectIds(ref, resolved, ids);
+            }
+        }
+    }
+
+    private <T> void fetch(Set<Object> ids, Class<T> entityClass, Function<T, String> idGetter, Map<Object, T> resolved) {
+        for (List<Object> chunk : chunks(ids)) {
+            Map<String, Object> idsByString = new HashMap<>();
+            chunk.forEach(id -> idsByString.put(id.toString(), id));
+            for (T entity : mongoTemplate.find(query(where("_id").in(chunk)), entityClass)) {
+                resolved.put(idsByString.get(idGetter.apply(entity)), entity);
+            }
+        }
+    }
+
+    private static List<List<Object>> chunks(Set<Object> ids) {
+        List<List<Object>> chunks = new ArrayList<>();
+        List<Object> chunk = new ArrayList<>(Math.min(ids.size(), MAX_IDS_PER_QUERY));
+        for (Object id : ids) {
+            if (chunk.size() == MAX_IDS_PER_QUERY) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>(MAX_IDS_PER_QUERY);
+            }
+            chunk.add(id);
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    private static <T> Set<T> resolveAll(Object refs, Map<Object, T> resolved) {
+        Set<T> entities = new LinkedHashSet<>();
+        for (Object ref : (List<?>) refs) {
+            T entity = resolved.get(((DBRef) ref).getId());
+            if (entity != null) {
+                entities.add(entity);
+            }
+        }
+        return entities;
+    }
+}
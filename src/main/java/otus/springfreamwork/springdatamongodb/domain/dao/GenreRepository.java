@@ -1,14 +1,26 @@
 package otus.springfreamwork.springdatamongodb.domain.dao;
 
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import otus.springfreamwork.springdatamongodb.domain.model.Genre;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface GenreRepository extends MongoRepository<Genre, String> {
 
     Optional<Genre> findByName(String name);
 
+    List<Genre> findAllByNameIn(Collection<String> names);
+
     void deleteByName(String name);
+
+    Stream<Genre> streamAllBy();
+
+    List<Genre> findAllByOrderByNameAsc(Pageable pageable);
+
+    List<Genre> findByNameGreaterThanOrderByNameAsc(String name, Pageable pageable);
 }
@@ -3,6 +3,7 @@ package otus.springfreamwork.springdatamongodb.domain.model;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.PersistenceConstructor;
+import org.springframework.data.annotation.Transient;
 import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
@@ -19,6 +20,9 @@ public class Author {
     private String name;
     private String surname;
     private Country country;
+    // import readers share one author per name, the hash is computed once and reset by the setters
+    @Transient
+    private int hash;
 
     public Author() {}
 
@@ -48,6 +52,7 @@ public class Author {
 
     public void setName(String name) {
         this.name = name;
+        this.hash = 0;
     }
 
     public String getSurname() {
@@ -56,6 +61,7 @@ public class Author {
 
     public void setSurname(String surname) {
         this.surname = surname;
+        this.hash = 0;
     }
 
     public Country getCountry() {
@@ -64,6 +70,7 @@ public class Author {
 
     public void setCountry(Country country) {
         this.country = country;
+        this.hash = 0;
     }
 
     @Override
@@ -78,8 +85,10 @@ public class Author {
 
     @Override
     public int hashCode() {
-
-        return Objects.hash(getName(), surname, country);
+        if (hash == 0) {
+            hash = Objects.hash(getName(), surname, country);
+        }
+        return hash;
     }
 
     @Override
@@ -7,15 +7,15 @@ import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.DBRef;
 import org.springframework.data.mongodb.core.mapping.Document;
 
-import java.util.Calendar;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
 import java.util.Date;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 
-import static java.util.Calendar.DAY_OF_YEAR;
-import static java.util.Calendar.YEAR;
-
 @Document
 public class Book{
 
@@ -25,8 +25,9 @@ public class Book{
     @Indexed(unique = true)
     private String name;
     private Date publishedDate;
+    // null until the age is first needed, loaded books do not pay for it unless it is read
     @Transient
-    private int ageYears;
+    private Integer ageYears;
     private Map<Integer,String> parts;
     @DBRef
     private Set<Author> authors;
@@ -42,19 +43,6 @@ public class Book{
         this.parts = parts;
         this.authors = authors;
         this.genre = genre;
-
-        if (this.publishedDate == null) {
-            ageYears = -1;
-        } else {
-            Calendar published = Calendar.getInstance();
-            published.setTime(this.publishedDate);
-            Calendar now = Calendar.getInstance();
-            int adjust = 0;
-            if (now.get(DAY_OF_YEAR) - published.get(DAY_OF_YEAR) < 0) {
-                adjust = -1;
-            }
-            ageYears = now.get(YEAR) - published.get(YEAR) + adjust;
-        }
     }
 
     public String getId() {
@@ -79,24 +67,26 @@ public class Book{
 
     public void setPublishedDate(Date publishedDate) {
         this.publishedDate = publishedDate;
+        this.ageYears = null;
     }
 
     public void calculateAge() {
+        calculateAge(LocalDate.now());
+    }
+
+    public void calculateAge(LocalDate today) {
         if (this.publishedDate == null) {
             ageYears = -1;
         } else {
-            Calendar published = Calendar.getInstance();
-            published.setTime(this.publishedDate);
-            Calendar now = Calendar.getInstance();
-            int adjust = 0;
-            if (now.get(DAY_OF_YEAR) - published.get(DAY_OF_YEAR) < 0) {
-                adjust = -1;
-            }
-            ageYears = now.get(YEAR) - published.get(YEAR) + adjust;
+            LocalDate published = Instant.ofEpochMilli(publishedDate.getTime()).atZone(ZoneId.systemDefault()).toLocalDate();
+            ageYears = (int) ChronoUnit.YEARS.between(published, today);
         }
     }
 
     public int getAgeYears() {
+        if (ageYears == null) {
+            calculateAge();
+        }
         return ageYears;
     }
 
@@ -133,8 +123,8 @@ public class Book{
         if (this == o) return true;
         if (!(o instanceof Book)) return false;
         Book book = (Book) o;
-        return getAgeYears() == book.getAgeYears() &&
-                Objects.equals(getPublishedDate(), book.getPublishedDate()) &&
+        // the age is derived from the published date and a "today", it takes no part in equality
+        return Objects.equals(getPublishedDate(), book.getPublishedDate()) &&
                 Objects.equals(getParts(), book.getParts()) &&
                 Objects.equals(getAuthors(), book.getAuthors()) &&
                 Objects.equals(getGenre(), book.getGenre());
@@ -143,7 +133,7 @@ public class Book{
     @Override
     public int hashCode() {
 
-        return Objects.hash(getPublishedDate(), getAgeYears(), getParts(), getAuthors(), getGenre());
+        return Objects.hash(getPublishedDate(), getParts(), getAuthors(), getGenre());
     }
 
     @Override
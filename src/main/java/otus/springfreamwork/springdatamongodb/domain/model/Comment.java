@@ -17,6 +17,7 @@ public class Comment {
     @Indexed
     private String username;
     private String comment;
+    @Indexed
     @DBRef
     private Set<Book> books;
 
@@ -0,0 +1,62 @@
+package otus.springfreamwork.springdatamongodb.batch;
+
+import org.junit.Test;
+import org.springframework.batch.repeat.RepeatContext;
+import otus.springfreamwork.springdatamongodb.com.app.batch.AdaptiveCompletionPolicy;
+
+import java.time.Duration;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AdaptiveCompletionPolicyTest {
+
+    @Test
+    public void policyShouldGrowChunkUpToMaxWhileWritesAreFast() {
+        AdaptiveCompletionPolicy policy = new AdaptiveCompletionPolicy(3, 10, Duration.ofDays(1));
+
+        RepeatContext context = policy.start(null);
+        policy.update(context);
+        policy.update(context);
+        assertFalse(policy.isComplete(context));
+        policy.update(context);
+        assertTrue(policy.isComplete(context));
+
+        write(policy, 0);
+        assertEquals(6, policy.getChunkSize());
+        write(policy, 0);
+        assertEquals(10, policy.getChunkSize());
+        write(policy, 0);
+        assertEquals(10, policy.getChunkSize());
+    }
+
+    @Test
+    public void policyShouldShrinkChunkWhenWritesAreSlowOrFail() {
+        AdaptiveCompletionPolicy policy = new AdaptiveCompletionPolicy(2, 100, Duration.ofMillis(1));
+        write(policy, 0);
+        write(policy, 0);
+        write(policy, 0);
+        int grownSize = policy.getChunkSize();
+
+        write(policy, 5);
+        assertEquals(grownSize / 2, policy.getChunkSize());
+
+        policy.beforeWrite(Collections.emptyList());
+        policy.onWriteError(new IllegalStateException(), Collections.emptyList());
+        assertEquals(2, policy.getChunkSize());
+    }
+
+    private void write(AdaptiveCompletionPolicy policy, long latencyMillis) {
+        policy.beforeWrite(Collections.emptyList());
+        if (latencyMillis > 0) {
+            try {
+                Thread.sleep(latencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        policy.afterWrite(Collections.emptyList());
+    }
+}
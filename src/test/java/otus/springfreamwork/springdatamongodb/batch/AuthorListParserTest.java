@@ -0,0 +1,41 @@
+package otus.springfreamwork.springdatamongodb.batch;
+
+import org.junit.Test;
+import otus.springfreamwork.springdatamongodb.com.app.batch.AuthorListParser;
+import otus.springfreamwork.springdatamongodb.com.app.batch.AuthorNameBuffer;
+
+import static org.junit.Assert.assertEquals;
+
+public class AuthorListParserTest {
+
+    private final AuthorListParser parser = new AuthorListParser(',');
+
+    @Test
+    public void parserShouldSplitAuthorsAndTakeLastTokenAsSurname() {
+        AuthorNameBuffer buffer = parser.parse(" Лев Толстой,  John Ronald Reuel  Tolkien ,Ivan Turgenev", new AuthorNameBuffer());
+
+        assertEquals(3, buffer.size());
+        assertEquals("Лев", buffer.name(0));
+        assertEquals("Толстой", buffer.surname(0));
+        assertEquals("John Ronald Reuel", buffer.name(1));
+        assertEquals("Tolkien", buffer.surname(1));
+        assertEquals("Ivan", buffer.name(2));
+        assertEquals("Turgenev", buffer.surname(2));
+
+        parser.parse("Anton Chekhov", buffer);
+
+        assertEquals(1, buffer.size());
+        assertEquals("Anton", buffer.name(0));
+        assertEquals("Chekhov", buffer.surname(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parserShouldRejectEntryWithoutSurname() {
+        parser.parse("Leo Tolstoy, Homer", new AuthorNameBuffer());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parserShouldRejectEmptyEntry() {
+        parser.parse("Leo Tolstoy,,Ivan Turgenev", new AuthorNameBuffer());
+    }
+}
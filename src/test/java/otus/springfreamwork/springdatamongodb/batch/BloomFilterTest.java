@@ -0,0 +1,35 @@
+package otus.springfreamwork.springdatamongodb.batch;
+
+import org.junit.Test;
+import otus.springfreamwork.springdatamongodb.com.app.batch.BloomFilter;
+import otus.springfreamwork.springdatamongodb.com.app.batch.ExistingKeyFilter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BloomFilterTest {
+
+    @Test
+    public void filterShouldKeepEveryAddedKeyAndFewFalsePositives() {
+        BloomFilter filter = BloomFilter.create(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put(ExistingKeyFilter.key("Name" + i, "Surname" + i));
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain(ExistingKeyFilter.key("Name" + i, "Surname" + i)));
+            if (filter.mightContain(ExistingKeyFilter.key("Name" + i, "Surname" + (i + 1)))) {
+                falsePositives++;
+            }
+        }
+
+        assertEquals(7, filter.hashCount());
+        assertTrue("false positives: " + falsePositives, falsePositives < 200);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void filterShouldRejectImpossibleFalsePositiveRate() {
+        BloomFilter.create(100, 1);
+    }
+}
@@ -0,0 +1,179 @@
+package otus.springfreamwork.springdatamongodb.batch;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.MongoDbFactory;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.DefaultDbRefResolver;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import otus.springfreamwork.springdatamongodb.com.app.batch.BulkUpsertItemWriter;
+import otus.springfreamwork.springdatamongodb.com.app.batch.ExistingKeyFilter;
+import otus.springfreamwork.springdatamongodb.domain.model.Author;
+import otus.springfreamwork.springdatamongodb.domain.model.Book;
+import otus.springfreamwork.springdatamongodb.domain.model.Genre;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+import static otus.springfreamwork.springdatamongodb.domain.model.Country.RUSSIA;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BulkUpsertItemWriterTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private BulkOperations bulkOperations;
+
+    @Mock
+    private ExistingKeyFilter<Author> existingAuthors;
+
+    @Before
+    public void init() {
+        MappingMongoConverter converter = new MappingMongoConverter(
+                new DefaultDbRefResolver(mock(MongoDbFactory.class)), new MongoMappingContext());
+        converter.afterPropertiesSet();
+        when(mongoTemplate.getConverter()).thenReturn(converter);
+    }
+
+    @Test
+    public void writerShouldOnlySetOnInsertAuthorsAndGenres() {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Author.class)).thenReturn(bulkOperations);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Genre.class)).thenReturn(bulkOperations);
+
+        new BulkUpsertItemWriter<>(mongoTemplate, Author.class, BulkUpsertItemWriterTest::authorKey, false)
+                .write(Collections.singletonList(new Author("Leo", "Tolstoy", RUSSIA)));
+        new BulkUpsertItemWriter<>(mongoTemplate, Genre.class, genre -> query(where("name").is(genre.getName())), false)
+                .write(Collections.singletonList(new Genre("novel")));
+
+        ArgumentCaptor<Query> keys = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(bulkOperations, times(2)).upsert(keys.capture(), updates.capture());
+        verify(bulkOperations, times(2)).execute();
+        assertEquals(new Document("name", "Leo").append("surname", "Tolstoy"), keys.getAllValues().get(0).getQueryObject());
+        Document authorUpdate = updates.getAllValues().get(0).getUpdateObject();
+        assertEquals(Collections.singleton("$setOnInsert"), authorUpdate.keySet());
+        assertEquals("Tolstoy", ((Document) authorUpdate.get("$setOnInsert")).get("surname"));
+        assertFalse(((Document) authorUpdate.get("$setOnInsert")).containsKey("_id"));
+        assertEquals(new Document("name", "novel"), keys.getAllValues().get(1).getQueryObject());
+        assertEquals(new Document("$setOnInsert", new Document("name", "novel").append("_class", Genre.class.getName())),
+                updates.getAllValues().get(1).getUpdateObject());
+    }
+
+    @Test
+    public void writerShouldOverwriteBooks() {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Book.class)).thenReturn(bulkOperations);
+        Book book = new Book("War And Peace", new Date(0), null, Collections.emptySet(), null);
+
+        new BulkUpsertItemWriter<>(mongoTemplate, Book.class, b -> query(where("name").is(b.getName())), true)
+                .write(Collections.singletonList(book));
+
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(bulkOperations).upsert(any(Query.class), update.capture());
+        Document bookUpdate = update.getValue().getUpdateObject();
+        assertEquals(Collections.singleton("$set"), bookUpdate.keySet());
+        assertEquals("War And Peace", ((Document) bookUpdate.get("$set")).get("name"));
+    }
+
+    @Test
+    public void writerShouldInsertKeysTheFilterHasNotSeen() {
+        Author stored = new Author("Leo", "Tolstoy", RUSSIA);
+        Author added = new Author("Ivan", "Turgenev", RUSSIA);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Author.class)).thenReturn(bulkOperations);
+        when(existingAuthors.mightExist(stored)).thenReturn(true);
+        when(existingAuthors.mightExist(added)).thenReturn(false);
+
+        authorWriter().write(Arrays.asList(stored, added));
+
+        verify(bulkOperations).upsert(any(Query.class), any(Update.class));
+        verify(bulkOperations).insert(added);
+        verify(existingAuthors).add(stored);
+        verify(existingAuthors).add(added);
+    }
+
+    @Test
+    public void writerShouldRetryDuplicateInsertsFromTheDriverAsUpserts() {
+        Author stored = new Author("Leo", "Tolstoy", RUSSIA);
+        Author raced = new Author("Ivan", "Turgenev", RUSSIA);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Author.class)).thenReturn(bulkOperations);
+        when(existingAuthors.mightExist(any())).thenReturn(false);
+        when(bulkOperations.execute())
+                .thenThrow(new MongoBulkWriteException(BulkWriteResult.unacknowledged(),
+                        Collections.singletonList(new BulkWriteError(11000, "E11000 duplicate key", new BsonDocument(), 1)),
+                        null, new ServerAddress()))
+                .thenReturn(BulkWriteResult.unacknowledged());
+
+        authorWriter().write(Arrays.asList(stored, raced));
+
+        verify(bulkOperations).insert(stored);
+        verify(bulkOperations).insert(raced);
+        ArgumentCaptor<Query> retried = ArgumentCaptor.forClass(Query.class);
+        verify(bulkOperations).upsert(retried.capture(), any(Update.class));
+        assertEquals(authorKey(raced).getQueryObject(), retried.getValue().getQueryObject());
+        verify(bulkOperations, times(2)).execute();
+    }
+
+    @Test
+    public void writerShouldRetryDuplicateUpsertsOnceAsUpserts() {
+        Author raced = new Author("Leo", "Tolstoy", RUSSIA);
+        BulkOperationException duplicateKey = mock(BulkOperationException.class);
+        when(duplicateKey.getErrors()).thenReturn(Collections.singletonList(
+                new com.mongodb.BulkWriteError(11000, "E11000 duplicate key", new BasicDBObject(), 0)));
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Author.class)).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenThrow(duplicateKey).thenReturn(BulkWriteResult.unacknowledged());
+
+        new BulkUpsertItemWriter<>(mongoTemplate, Author.class, BulkUpsertItemWriterTest::authorKey, false)
+                .write(Collections.singletonList(raced));
+
+        verify(bulkOperations, times(2)).upsert(any(Query.class), any(Update.class));
+        verify(bulkOperations, never()).insert(any(Object.class));
+        verify(bulkOperations, times(2)).execute();
+    }
+
+    @Test(expected = MongoBulkWriteException.class)
+    public void writerShouldNotRetryOtherWriteErrors() {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Author.class)).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenThrow(new MongoBulkWriteException(BulkWriteResult.unacknowledged(),
+                Collections.singletonList(new BulkWriteError(121, "Document failed validation", new BsonDocument(), 0)),
+                null, new ServerAddress()));
+
+        new BulkUpsertItemWriter<>(mongoTemplate, Author.class, BulkUpsertItemWriterTest::authorKey, false)
+                .write(Collections.singletonList(new Author("Leo", "Tolstoy", RUSSIA)));
+    }
+
+    private BulkUpsertItemWriter<Author> authorWriter() {
+        return new BulkUpsertItemWriter<>(mongoTemplate, Author.class, BulkUpsertItemWriterTest::authorKey, false, existingAuthors);
+    }
+
+    private static Query authorKey(Author author) {
+        return query(where("name").is(author.getName()).and("surname").is(author.getSurname()));
+    }
+}
@@ -0,0 +1,98 @@
+package otus.springfreamwork.springdatamongodb.batch;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.core.io.FileSystemResource;
+import otus.springfreamwork.springdatamongodb.com.app.batch.ByteRangeLineItemReader;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class ByteRangeLineItemReaderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void readerShouldSeekToSavedOffsetOnRestart() throws Exception {
+        File file = csv("Book 1;novel\nКнига 2;роман\nBook 3;fantasy\n");
+        ExecutionContext executionContext = new ExecutionContext();
+        ByteRangeLineItemReader<String> reader = reader(file, new ArrayList<>());
+
+        reader.open(executionContext);
+        reader.read();
+        reader.read();
+        reader.update(executionContext);
+        reader.close();
+
+        List<String> mappedLines = new ArrayList<>();
+        ByteRangeLineItemReader<String> restartedReader = reader(file, mappedLines);
+        restartedReader.open(executionContext);
+        List<String> items = new ArrayList<>();
+        String item;
+        while ((item = restartedReader.read()) != null) {
+            items.add(item);
+        }
+        restartedReader.close();
+
+        assertEquals(Arrays.asList("Book 3"), items);
+        assertEquals(Arrays.asList("Book 3;fantasy"), mappedLines);
+    }
+
+    @Test(expected = ItemStreamException.class)
+    public void readerShouldRefuseToRestartOnChangedFile() throws Exception {
+        File file = csv("Book 1;novel\nBook 2;novel\nBook 3;fantasy\n");
+        ExecutionContext executionContext = new ExecutionContext();
+        ByteRangeLineItemReader<String> reader = reader(file, new ArrayList<>());
+
+        reader.open(executionContext);
+        reader.read();
+        reader.update(executionContext);
+        reader.close();
+        Files.write(file.toPath(), "Book 1;novel\nBook 2;novel\nBook 3;fantasy\nBook 4;drama\n".getBytes(StandardCharsets.UTF_8));
+
+        reader(file, new ArrayList<>()).open(executionContext);
+    }
+
+    @Test
+    public void readerShouldSkipBlankLinesAndKeepCountingThem() throws Exception {
+        File file = csv("\nBook 1;novel\r\n\r\nBook 2;novel\n\n");
+        ByteRangeLineItemReader<String> reader = new ByteRangeLineItemReader<>(new FileSystemResource(file),
+                (line, lineNumber) -> lineNumber + ":" + line.substring(0, line.indexOf(';')));
+        reader.setName("bookReader");
+
+        reader.open(new ExecutionContext());
+        List<String> items = new ArrayList<>();
+        String item;
+        while ((item = reader.read()) != null) {
+            items.add(item);
+        }
+        reader.close();
+
+        assertEquals(Arrays.asList("2:Book 1", "4:Book 2"), items);
+    }
+
+    private ByteRangeLineItemReader<String> reader(File file, List<String> mappedLines) {
+        ByteRangeLineItemReader<String> reader = new ByteRangeLineItemReader<>(new FileSystemResource(file), (line, lineNumber) -> {
+            mappedLines.add(line);
+            return line.substring(0, line.indexOf(';'));
+        });
+        reader.setName("bookReader");
+        return reader;
+    }
+
+    private File csv(String content) throws Exception {
+        File file = folder.newFile("data.csv");
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
@@ -0,0 +1,77 @@
+package otus.springfreamwork.springdatamongodb.batch;
+
+import org.junit.Test;
+import otus.springfreamwork.springdatamongodb.com.app.batch.ConcurrentKeySet;
+import otus.springfreamwork.springdatamongodb.com.app.batch.ExistingKeyFilter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ConcurrentKeySetTest {
+
+    @Test
+    public void setShouldTellApartKeysWithTheSameHash() {
+        ConcurrentKeySet keys = new ConcurrentKeySet(key -> 42L);
+
+        assertTrue(keys.add(ExistingKeyFilter.key("Leo", "Tolstoy")));
+        assertTrue(keys.add(ExistingKeyFilter.key("Лев", "Толстой")));
+        assertFalse(keys.add(ExistingKeyFilter.key("Leo", "Tolstoy")));
+
+        assertTrue(keys.contains(ExistingKeyFilter.key("Лев", "Толстой")));
+        assertFalse(keys.contains(ExistingKeyFilter.key("Leo", "Tolstoi")));
+        assertEquals(2, keys.size());
+    }
+
+    @Test
+    public void setShouldMatchKeysByTheirExactChars() {
+        ConcurrentKeySet keys = new ConcurrentKeySet();
+
+        assertTrue(keys.add(ExistingKeyFilter.key("Лев", "Толстой")));
+
+        assertTrue(keys.contains(new StringBuilder("Лев").append('\u0000').append("Толстой")));
+        assertFalse(keys.add(new StringBuilder("Лев").append('\u0000').append("Толстой")));
+        assertTrue(keys.add(ExistingKeyFilter.key("лев", "толстой")));
+        assertTrue(keys.add(ExistingKeyFilter.key("Лев", "Толстой ")));
+        assertEquals(3, keys.size());
+    }
+
+    @Test
+    public void setShouldAddEveryKeyOnceFromConcurrentThreads() throws Exception {
+        ConcurrentKeySet keys = new ConcurrentKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                results.add(executor.submit(() -> {
+                    int added = 0;
+                    for (int i = 0; i < 50_000; i++) {
+                        if (keys.add(ExistingKeyFilter.key("Name" + i, "Surname" + i % 100))) {
+                            added++;
+                        }
+                    }
+                    return added;
+                }));
+            }
+            int added = 0;
+            for (Future<Integer> result : results) {
+                added += result.get();
+            }
+
+            assertEquals(50_000, added);
+            assertEquals(50_000, keys.size());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        keys.clear();
+        assertEquals(0, keys.size());
+        assertFalse(keys.contains(ExistingKeyFilter.key("Name1", "Surname1")));
+    }
+}
@@ -0,0 +1,141 @@
+package otus.springfreamwork.springdatamongodb.batch;
+
+import org.bson.Document;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import otus.springfreamwork.springdatamongodb.com.app.batch.DeltaBookWriter;
+import otus.springfreamwork.springdatamongodb.com.app.batch.RowHash;
+import otus.springfreamwork.springdatamongodb.domain.model.Author;
+import otus.springfreamwork.springdatamongodb.domain.model.Book;
+import otus.springfreamwork.springdatamongodb.domain.model.Genre;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DeltaBookWriterTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private BulkOperations bulkOperations;
+
+    @Mock
+    private ItemWriter<Book> bookWriter;
+
+    @Test
+    public void contentHashShouldNotDependOnAuthorOrder() {
+        Book book = book(new Date(0), "novel", new Author("Leo", "Tolstoy", null), new Author("Ivan", "Turgenev", null));
+        Book sameBook = book(new Date(0), "novel", new Author("Ivan", "Turgenev", null), new Author("Leo", "Tolstoy", null));
+
+        assertEquals(DeltaBookWriter.contentHash(book), DeltaBookWriter.contentHash(sameBook));
+    }
+
+    @Test
+    public void contentHashShouldChangeWithAnyColumn() {
+        long hash = DeltaBookWriter.contentHash(book(new Date(0), "novel", new Author("Leo", "Tolstoy", null)));
+
+        assertNotEquals(hash, DeltaBookWriter.contentHash(book(new Date(1), "novel", new Author("Leo", "Tolstoy", null))));
+        assertNotEquals(hash, DeltaBookWriter.contentHash(book(new Date(0), "drama", new Author("Leo", "Tolstoy", null))));
+        assertNotEquals(hash, DeltaBookWriter.contentHash(book(new Date(0), "novel", new Author("Lev", "Tolstoy", null))));
+        assertNotEquals(hash, DeltaBookWriter.contentHash(book(new Date(0), "novel", new Author("Leo Tol", "stoy", null))));
+    }
+
+    @Test
+    public void writerShouldSkipUnchangedRowsAndUpsertChangedOnes() throws Exception {
+        Book unchanged = book("Anna Karenina", new Date(0));
+        Book changed = book("War And Peace", new Date(1));
+        Book added = book("Resurrection", new Date(2));
+        when(mongoTemplate.find(any(Query.class), eq(RowHash.class))).thenReturn(Arrays.asList(
+                new RowHash("Anna Karenina", DeltaBookWriter.contentHash(unchanged), 1),
+                new RowHash("War And Peace", DeltaBookWriter.contentHash(book("War And Peace", new Date(0))), 1)));
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, RowHash.class)).thenReturn(bulkOperations);
+        StepExecution stepExecution = stepExecution(7);
+        DeltaBookWriter writer = new DeltaBookWriter(mongoTemplate, bookWriter);
+
+        writer.startRun(stepExecution);
+        writer.write(Arrays.asList(unchanged, changed, added));
+        writer.logDelta(stepExecution);
+
+        verify(bookWriter).write(Arrays.asList(changed, added));
+        ArgumentCaptor<Query> upserted = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> hashes = ArgumentCaptor.forClass(Update.class);
+        verify(bulkOperations, times(2)).upsert(upserted.capture(), hashes.capture());
+        assertEquals(new Document("_id", "War And Peace"), upserted.getAllValues().get(0).getQueryObject());
+        assertEquals(new Document("$set", new Document("hash", DeltaBookWriter.contentHash(changed)).append("run", 7L)),
+                hashes.getAllValues().get(0).getUpdateObject());
+        assertEquals(new Document("_id", "Resurrection"), upserted.getAllValues().get(1).getQueryObject());
+
+        ArgumentCaptor<Query> touched = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> runs = ArgumentCaptor.forClass(Update.class);
+        verify(bulkOperations).updateMulti(touched.capture(), runs.capture());
+        assertEquals(new Document("_id", new Document("$in", Collections.singletonList("Anna Karenina"))),
+                touched.getValue().getQueryObject());
+        assertEquals(new Document("$set", new Document("run", 7L)), runs.getValue().getUpdateObject());
+        verify(bulkOperations).execute();
+
+        assertEquals(1, stepExecution.getExecutionContext().getLong(DeltaBookWriter.INSERTED));
+        assertEquals(1, stepExecution.getExecutionContext().getLong(DeltaBookWriter.CHANGED));
+        assertEquals(1, stepExecution.getExecutionContext().getLong(DeltaBookWriter.UNCHANGED));
+    }
+
+    @Test
+    public void writerShouldNotWriteBooksWhenNoRowChanged() throws Exception {
+        Book unchanged = book("Anna Karenina", new Date(0));
+        when(mongoTemplate.find(any(Query.class), eq(RowHash.class)))
+                .thenReturn(Collections.singletonList(new RowHash("Anna Karenina", DeltaBookWriter.contentHash(unchanged), 1)));
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, RowHash.class)).thenReturn(bulkOperations);
+        DeltaBookWriter writer = new DeltaBookWriter(mongoTemplate, bookWriter);
+
+        writer.startRun(stepExecution(7));
+        writer.write(Collections.singletonList(unchanged));
+
+        verify(bookWriter, never()).write(any());
+        verify(bulkOperations, never()).upsert(any(Query.class), any(Update.class));
+        verify(bulkOperations).updateMulti(any(Query.class), any(Update.class));
+    }
+
+    private static StepExecution stepExecution(long instanceId) {
+        JobExecution jobExecution = new JobExecution(new JobInstance(instanceId, "deltaImportBookJob"), new JobParameters());
+        return jobExecution.createStepExecution("deltaStep");
+    }
+
+    private static Book book(String name, Date publishedDate) {
+        Set<Author> authors = Collections.singleton(new Author("Leo", "Tolstoy", null));
+        return new Book(name, publishedDate, new HashMap<>(), authors, new Genre("novel"));
+    }
+
+    private static Book book(Date publishedDate, String genre, Author... authors) {
+        Set<Author> authorSet = new LinkedHashSet<>();
+        for (Author author : authors) {
+            authorSet.add(author);
+        }
+        return new Book("War And Peace", publishedDate, new HashMap<>(), authorSet, new Genre(genre));
+    }
+}
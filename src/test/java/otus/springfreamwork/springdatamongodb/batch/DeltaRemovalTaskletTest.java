@@ -0,0 +1,93 @@
+package otus.springfreamwork.springdatamongodb.batch;
+
+import com.mongodb.DBRef;
+import com.mongodb.client.MongoCollection;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import otus.springfreamwork.springdatamongodb.com.app.batch.DeltaRemovalTasklet;
+import otus.springfreamwork.springdatamongodb.com.app.batch.RowHash;
+import otus.springfreamwork.springdatamongodb.domain.model.Book;
+import otus.springfreamwork.springdatamongodb.domain.model.Comment;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DeltaRemovalTaskletTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private MongoCollection<Document> comments;
+
+    private StepExecution stepExecution;
+    private ChunkContext chunkContext;
+
+    @Before
+    public void init() {
+        JobExecution jobExecution = new JobExecution(new JobInstance(7L, "deltaImportBookJob"), new JobParameters());
+        stepExecution = jobExecution.createStepExecution("deltaRemovalStep");
+        chunkContext = new ChunkContext(new StepContext(stepExecution));
+    }
+
+    @Test
+    public void taskletShouldRemoveUnseenBooksWithTheirCommentReferences() {
+        ObjectId removedBookId = new ObjectId();
+        when(mongoTemplate.find(any(Query.class), eq(RowHash.class)))
+                .thenReturn(Arrays.asList(new RowHash("Anna Karenina", 1, 6), new RowHash("War And Peace", 2, 6)))
+                .thenReturn(Collections.emptyList());
+        when(mongoTemplate.getCollectionName(Book.class)).thenReturn("book");
+        when(mongoTemplate.getCollectionName(Comment.class)).thenReturn("comment");
+        when(mongoTemplate.find(any(Query.class), eq(Document.class), eq("book")))
+                .thenReturn(Collections.singletonList(new Document("_id", removedBookId)));
+        when(mongoTemplate.getCollection("comment")).thenReturn(comments);
+        DeltaRemovalTasklet tasklet = new DeltaRemovalTasklet(mongoTemplate, 2);
+
+        assertEquals(RepeatStatus.CONTINUABLE, tasklet.execute(stepExecution.createStepContribution(), chunkContext));
+        assertEquals(RepeatStatus.FINISHED, tasklet.execute(stepExecution.createStepContribution(), chunkContext));
+
+        ArgumentCaptor<Query> pages = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, times(2)).find(pages.capture(), eq(RowHash.class));
+        assertEquals(new Document("run", new Document("$ne", 7L)), pages.getAllValues().get(0).getQueryObject());
+        assertEquals(new Document("run", new Document("$ne", 7L)).append("_id", new Document("$gt", "War And Peace")),
+                pages.getAllValues().get(1).getQueryObject());
+        assertEquals(new Document("_id", 1), pages.getAllValues().get(1).getSortObject());
+
+        List<String> removedNames = Arrays.asList("Anna Karenina", "War And Peace");
+        ArgumentCaptor<Query> removed = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).remove(removed.capture(), eq(Book.class));
+        assertEquals(new Document("name", new Document("$in", removedNames)), removed.getValue().getQueryObject());
+        verify(mongoTemplate).remove(removed.capture(), eq(RowHash.class));
+        assertEquals(new Document("_id", new Document("$in", removedNames)), removed.getValue().getQueryObject());
+
+        List<DBRef> refs = Collections.singletonList(new DBRef("book", removedBookId));
+        verify(comments).updateMany(new Document("books", new Document("$in", refs)),
+                new Document("$pull", new Document("books", new Document("$in", refs))));
+        assertEquals("War And Peace", stepExecution.getExecutionContext().getString(DeltaRemovalTasklet.LAST_KEY));
+        assertEquals(2, stepExecution.getExecutionContext().getLong(DeltaRemovalTasklet.REMOVED));
+    }
+}
@@ -0,0 +1,81 @@
+package otus.springfreamwork.springdatamongodb.batch;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import otus.springfreamwork.springdatamongodb.com.app.batch.DimensionCache;
+import otus.springfreamwork.springdatamongodb.domain.dao.AuthorRepository;
+import otus.springfreamwork.springdatamongodb.domain.dao.GenreRepository;
+import otus.springfreamwork.springdatamongodb.domain.model.Genre;
+
+import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DimensionCacheTest {
+
+    private static final int MAX_ENTRIES = 10;
+
+    @Mock
+    private AuthorRepository authorRepository;
+
+    @Mock
+    private GenreRepository genreRepository;
+
+    @Before
+    public void init() {
+        when(genreRepository.findAll(any(Pageable.class))).thenReturn(new PageImpl<>(Collections.emptyList()));
+        when(authorRepository.findAll(any(Pageable.class))).thenReturn(new PageImpl<>(Collections.emptyList()));
+        when(genreRepository.findByName(anyString())).thenAnswer(invocation -> Optional.of(new Genre(invocation.getArgument(0))));
+    }
+
+    @Test
+    public void cacheShouldKeepHittingEntriesItHasRoomFor() {
+        DimensionCache dimensionCache = new DimensionCache(authorRepository, genreRepository, 1);
+
+        dimensionCache.findGenre("novel");
+        dimensionCache.findGenre("poem");
+        dimensionCache.findGenre("novel");
+        dimensionCache.findGenre("poem");
+
+        assertEquals(1, dimensionCache.size());
+        assertEquals(1, dimensionCache.getHits());
+        assertEquals(3, dimensionCache.getMisses());
+        verify(genreRepository, times(2)).findByName("poem");
+    }
+
+    @Test
+    public void cacheShouldNotGrowPastItsBoundUnderConcurrentMisses() {
+        DimensionCache dimensionCache = new DimensionCache(authorRepository, genreRepository, MAX_ENTRIES);
+        CountDownLatch start = new CountDownLatch(1);
+
+        CompletableFuture<?>[] lookups = IntStream.range(0, MAX_ENTRIES * 20)
+                .mapToObj(i -> CompletableFuture.runAsync(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    dimensionCache.findGenre("genre" + i);
+                }))
+                .toArray(CompletableFuture[]::new);
+        start.countDown();
+        CompletableFuture.allOf(lookups).join();
+
+        assertEquals(MAX_ENTRIES, dimensionCache.size());
+    }
+}
@@ -0,0 +1,35 @@
+package otus.springfreamwork.springdatamongodb.batch;
+
+import org.junit.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import otus.springfreamwork.springdatamongodb.com.app.batch.FailFastSplitListener;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FailFastSplitListenerTest {
+
+    private final FailFastSplitListener listener = new FailFastSplitListener();
+
+    @Test
+    public void listenerShouldStopRunningSiblingsOfFailedStep() {
+        JobExecution jobExecution = new JobExecution(1L);
+        StepExecution authorStep = jobExecution.createStepExecution("step1");
+        StepExecution genreStep = jobExecution.createStepExecution("step2");
+        StepExecution finishedStep = jobExecution.createStepExecution("step0");
+        genreStep.setStatus(BatchStatus.STARTED);
+        finishedStep.setStatus(BatchStatus.COMPLETED);
+
+        authorStep.setStatus(BatchStatus.COMPLETED);
+        listener.afterStep(authorStep);
+        assertFalse(genreStep.isTerminateOnly());
+
+        authorStep.setStatus(BatchStatus.FAILED);
+        listener.afterStep(authorStep);
+        assertTrue(genreStep.isTerminateOnly());
+        assertFalse(finishedStep.isTerminateOnly());
+        assertFalse(authorStep.isTerminateOnly());
+    }
+}
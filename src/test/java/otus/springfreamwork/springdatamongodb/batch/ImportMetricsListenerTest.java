@@ -0,0 +1,73 @@
+package otus.springfreamwork.springdatamongodb.batch;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import otus.springfreamwork.springdatamongodb.com.app.batch.AdaptiveCompletionPolicy;
+import otus.springfreamwork.springdatamongodb.com.app.batch.ImportMetricsListener;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+
+public class ImportMetricsListenerTest {
+
+    @Test
+    public void listenerShouldRecordMetersPerStepAndMergePartitions() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        ImportMetricsListener listener = new ImportMetricsListener(registry, Duration.ofMinutes(1));
+
+        runChunk(listener, "step1", "author", null);
+        runChunk(listener, "bookPartitionStep:partition0", "book", "book");
+        runChunk(listener, "bookPartitionStep:partition1", "book", "book");
+
+        assertEquals(1, registry.get("import.read").tag("step", "step1").timer().count());
+        assertEquals(1.0, registry.get("import.process.filtered").tag("step", "step1").counter().count(), 0);
+        assertEquals(2, registry.get("import.chunk").tag("step", "bookPartitionStep").timer().count());
+        assertEquals(4.0, registry.get("import.write.items").tag("step", "bookPartitionStep").counter().count(), 0);
+    }
+
+    @Test
+    public void listenerShouldRecordChunkSizesChosenByThePolicy() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        ImportMetricsListener listener = new ImportMetricsListener(registry, Duration.ofMinutes(1));
+        AdaptiveCompletionPolicy policy = new AdaptiveCompletionPolicy(3, 10, Duration.ofDays(1), listener::recordChunkSize);
+
+        StepSynchronizationManager.register(new StepExecution("bookPartitionStep:partition0", new JobExecution(1L)));
+        try {
+            policy.start(null);
+            policy.beforeWrite(Collections.emptyList());
+            policy.afterWrite(Collections.emptyList());
+            policy.start(null);
+        } finally {
+            StepSynchronizationManager.close();
+        }
+
+        DistributionSummary chunkSize = registry.get("import.chunk.size").tag("step", "bookPartitionStep").summary();
+        assertEquals(2, chunkSize.count());
+        assertEquals(9.0, chunkSize.totalAmount(), 0);
+        assertEquals(6.0, chunkSize.max(), 0);
+    }
+
+    private void runChunk(ImportMetricsListener listener, String stepName, Object item, Object result) {
+        ChunkContext chunkContext = new ChunkContext(new StepContext(new StepExecution(stepName, new JobExecution(1L))));
+        listener.beforeChunk(chunkContext);
+        listener.beforeRead();
+        listener.afterRead(item);
+        listener.beforeProcess(item);
+        listener.afterProcess(item, result);
+        if (result != null) {
+            listener.beforeWrite(Arrays.asList(result, result));
+            listener.afterWrite(Arrays.asList(result, result));
+        }
+        listener.afterChunk(chunkContext);
+    }
+}
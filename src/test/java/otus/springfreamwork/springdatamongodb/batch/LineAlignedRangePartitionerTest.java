@@ -0,0 +1,61 @@
+package otus.springfreamwork.springdatamongodb.batch;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.core.io.FileSystemResource;
+import otus.springfreamwork.springdatamongodb.com.app.batch.LineAlignedRangePartitioner;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static otus.springfreamwork.springdatamongodb.com.app.batch.LineAlignedRangePartitioner.END_OFFSET;
+import static otus.springfreamwork.springdatamongodb.com.app.batch.LineAlignedRangePartitioner.START_OFFSET;
+
+public class LineAlignedRangePartitionerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void partitionerShouldSplitFileIntoAdjacentRangesStartingAtLineStart() throws Exception {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            content.append("Book ").append(i).append(";2000-01-01;Leo Tolstoy;novel\n");
+        }
+        byte[] bytes = content.toString().getBytes(StandardCharsets.UTF_8);
+        File file = folder.newFile("data.csv");
+        Files.write(file.toPath(), bytes);
+
+        Map<String, ExecutionContext> partitions = new LineAlignedRangePartitioner(new FileSystemResource(file)).partition(7);
+
+        assertEquals(7, partitions.size());
+        long expectedStart = 0;
+        for (int i = 0; i < partitions.size(); i++) {
+            ExecutionContext context = partitions.get("partition" + i);
+            long start = context.getLong(START_OFFSET);
+            long end = context.getLong(END_OFFSET);
+            assertEquals(expectedStart, start);
+            assertTrue(end > start);
+            assertTrue(start == 0 || bytes[(int) start - 1] == '\n');
+            expectedStart = end;
+        }
+        assertEquals(bytes.length, expectedStart);
+    }
+
+    @Test
+    public void partitionerShouldNotCreateEmptyRanges() throws Exception {
+        File file = folder.newFile("data.csv");
+        Files.write(file.toPath(), "War And Piece;2000-01-01;Leo Tolstoy;novel\n".getBytes(StandardCharsets.UTF_8));
+
+        Map<String, ExecutionContext> partitions = new LineAlignedRangePartitioner(new FileSystemResource(file)).partition(4);
+
+        assertEquals(1, partitions.size());
+        assertEquals(0, partitions.get("partition0").getLong(START_OFFSET));
+    }
+}
@@ -0,0 +1,101 @@
+package otus.springfreamwork.springdatamongodb.batch;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.core.io.FileSystemResource;
+import otus.springfreamwork.springdatamongodb.com.app.batch.MappedCsvItemReader;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class MappedCsvItemReaderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void readerShouldReadLinesCrossingMappedWindows() throws Exception {
+        File file = csv("War And Piece;Leo Tolstoy\r\nАнна Каренина;Лев Толстой\n\nIdiot;Fyodor Dostoevsky");
+        MappedCsvItemReader<String> reader = new MappedCsvItemReader<>(new FileSystemResource(file),
+                row -> row.getString(1) + "/" + row.getString(0), ';');
+        reader.setWindowSize(64);
+
+        reader.open(new ExecutionContext());
+        List<String> items = readAll(reader);
+        reader.close();
+
+        assertEquals(Arrays.asList("Leo Tolstoy/War And Piece", "Лев Толстой/Анна Каренина", "Fyodor Dostoevsky/Idiot"), items);
+    }
+
+    @Test
+    public void readerShouldContinueFromSavedOffsetOnRestart() throws Exception {
+        File file = csv("Book 1;novel\nBook 2;novel\nBook 3;fantasy\n");
+        MappedCsvItemReader<String> reader = new MappedCsvItemReader<>(new FileSystemResource(file), row -> row.getString(0), ';');
+        ExecutionContext executionContext = new ExecutionContext();
+
+        reader.open(executionContext);
+        assertEquals("Book 1", reader.read());
+        reader.update(executionContext);
+        reader.close();
+
+        MappedCsvItemReader<String> restartedReader = new MappedCsvItemReader<>(new FileSystemResource(file), row -> row.getString(0), ';');
+        restartedReader.open(executionContext);
+
+        assertEquals(Arrays.asList("Book 2", "Book 3"), readAll(restartedReader));
+        restartedReader.close();
+    }
+
+    @Test(expected = ItemStreamException.class)
+    public void readerShouldRefuseToRestartOnChangedFile() throws Exception {
+        File file = csv("Book 1;novel\nBook 2;novel\nBook 3;fantasy\n");
+        MappedCsvItemReader<String> reader = new MappedCsvItemReader<>(new FileSystemResource(file), row -> row.getString(0), ';');
+        ExecutionContext executionContext = new ExecutionContext();
+
+        reader.open(executionContext);
+        reader.read();
+        reader.update(executionContext);
+        reader.close();
+        Files.write(file.toPath(), "Book 0;novel\nBook 2;novel\nBook 3;fantasy\n".getBytes(StandardCharsets.UTF_8));
+
+        new MappedCsvItemReader<>(new FileSystemResource(file), row -> row.getString(0), ';').open(executionContext);
+    }
+
+    @Test
+    public void readerShouldSkipBlankLinesAndKeepCountingThem() throws Exception {
+        File file = csv("\nBook 1;novel\r\n\r\nBook 2;novel\n\n");
+        MappedCsvItemReader<String> reader = new MappedCsvItemReader<>(new FileSystemResource(file),
+                row -> row.getLineNumber() + ":" + row.getString(0), ';');
+
+        reader.open(new ExecutionContext());
+        List<String> items = readAll(reader);
+        reader.close();
+
+        assertEquals(Arrays.asList("2:Book 1", "4:Book 2"), items);
+    }
+
+    private List<String> readAll(MappedCsvItemReader<String> reader) throws Exception {
+        List<String> items = new ArrayList<>();
+        String item;
+        while ((item = reader.read()) != null) {
+            items.add(item);
+        }
+        assertNull(reader.read());
+        return items;
+    }
+
+    private File csv(String content) throws Exception {
+        File file = folder.newFile("data.csv");
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
@@ -0,0 +1,67 @@
+package otus.springfreamwork.springdatamongodb.batch;
+
+import org.junit.Test;
+import otus.springfreamwork.springdatamongodb.com.app.batch.PublishedDateParser;
+import otus.springfreamwork.springdatamongodb.domain.model.Book;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+public class PublishedDateParserTest {
+
+    private final PublishedDateParser parser = new PublishedDateParser(ZoneOffset.UTC);
+
+    @Test
+    public void parserShouldReturnSeparateDatesForRepeatedValue() {
+        Date first = parser.parse("2016-02-29");
+        Date second = parser.parse("2016-02-29");
+
+        assertEquals(LocalDate.of(2016, 2, 29).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli(), first.getTime());
+        assertEquals(first, second);
+        assertNotSame(first, second);
+        assertEquals(LocalDate.of(1999, 1, 5), PublishedDateParser.toLocalDate(" 1999-1-05 "));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parserShouldRejectNonexistentDate() {
+        parser.parse("2017-02-29");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parserShouldRejectMalformedDate() {
+        parser.parse("2017/02/28");
+    }
+
+    @Test
+    public void bookShouldCountFullYearsAgainstGivenDay() {
+        Book book = new Book();
+        book.setPublishedDate(new PublishedDateParser(ZoneId.systemDefault()).parse("2000-03-01"));
+
+        book.calculateAge(LocalDate.of(2024, 2, 29));
+        assertEquals(23, book.getAgeYears());
+
+        book.calculateAge(LocalDate.of(2024, 3, 1));
+        assertEquals(24, book.getAgeYears());
+
+        book.setPublishedDate(null);
+        assertEquals(-1, book.getAgeYears());
+    }
+
+    @Test
+    public void booksShouldCompareWithoutTheirAge() {
+        Date published = parser.parse("2000-03-01");
+        Book book = new Book("War And Peace", published, null, null, null);
+        Book agedBook = new Book("War And Peace", new Date(published.getTime()), null, null, null);
+        agedBook.calculateAge(LocalDate.of(2024, 3, 1));
+
+        assertEquals(book, agedBook);
+        assertEquals(book.hashCode(), agedBook.hashCode());
+        assertTrue(book.toString().contains("ageYears=null"));
+    }
+}
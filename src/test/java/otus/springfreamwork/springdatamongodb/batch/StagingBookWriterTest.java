@@ -0,0 +1,152 @@
+package otus.springfreamwork.springdatamongodb.batch;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.data.mongodb.MongoDbFactory;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.DefaultDbRefResolver;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import otus.springfreamwork.springdatamongodb.com.app.batch.StagingBookWriter;
+import otus.springfreamwork.springdatamongodb.com.app.batch.StagingCollections;
+import otus.springfreamwork.springdatamongodb.domain.model.Author;
+import otus.springfreamwork.springdatamongodb.domain.model.Book;
+import otus.springfreamwork.springdatamongodb.domain.model.Genre;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static otus.springfreamwork.springdatamongodb.domain.model.Country.RUSSIA;
+
+@RunWith(MockitoJUnitRunner.class)
+public class StagingBookWriterTest {
+
+    private static final String LIVE_BOOK_ID = new ObjectId().toHexString();
+    private static final String LIVE_GENRE_ID = new ObjectId().toHexString();
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private BulkOperations genreOperations;
+
+    @Mock
+    private BulkOperations authorOperations;
+
+    @Mock
+    private BulkOperations bookOperations;
+
+    private final Genre novel = new Genre("novel");
+    private final Author tolstoy = new Author("Leo", "Tolstoy", RUSSIA);
+
+    @Before
+    public void init() {
+        MappingMongoConverter converter = new MappingMongoConverter(
+                new DefaultDbRefResolver(mock(MongoDbFactory.class)), new MongoMappingContext());
+        converter.afterPropertiesSet();
+        when(mongoTemplate.getConverter()).thenReturn(converter);
+        when(mongoTemplate.getCollectionName(Genre.class)).thenReturn("genre");
+        when(mongoTemplate.getCollectionName(Author.class)).thenReturn("author");
+        when(mongoTemplate.getCollectionName(Book.class)).thenReturn("book");
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Genre.class, "genre_staging")).thenReturn(genreOperations);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Author.class, "author_staging")).thenReturn(authorOperations);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Book.class, "book_staging")).thenReturn(bookOperations);
+    }
+
+    @Test
+    public void writerShouldReuseLiveIdsAndUpsertRepeatedBooksOnce() {
+        when(mongoTemplate.find(any(Query.class), eq(Document.class), eq("book"))).thenReturn(Collections.singletonList(
+                new Document("_id", new ObjectId(LIVE_BOOK_ID)).append("name", "War And Peace")));
+        when(mongoTemplate.find(any(Query.class), eq(Document.class), eq("genre"))).thenReturn(Collections.singletonList(
+                new Document("_id", new ObjectId(LIVE_GENRE_ID)).append("name", "novel")));
+        Book warAndPeace = book("War And Peace");
+        Book annaKarenina = book("Anna Karenina");
+        Book repeated = book("War And Peace");
+
+        writer(100).write(Arrays.asList(warAndPeace, annaKarenina, repeated));
+
+        ArgumentCaptor<Query> books = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> bookUpdates = ArgumentCaptor.forClass(Update.class);
+        verify(bookOperations, times(2)).upsert(books.capture(), bookUpdates.capture());
+        verify(bookOperations).execute();
+        assertEquals(new Document("_id", LIVE_BOOK_ID), books.getAllValues().get(0).getQueryObject());
+        assertEquals(new Document("_id", annaKarenina.getId()), books.getAllValues().get(1).getQueryObject());
+        assertEquals(Collections.singleton("$set"), bookUpdates.getAllValues().get(0).getUpdateObject().keySet());
+        assertEquals(LIVE_BOOK_ID, repeated.getId());
+        assertNull(warAndPeace.getId());
+
+        assertEquals(LIVE_GENRE_ID, repeated.getGenre().getId());
+        ArgumentCaptor<Query> genres = ArgumentCaptor.forClass(Query.class);
+        verify(genreOperations).upsert(genres.capture(), any(Update.class));
+        assertEquals(new Document("_id", LIVE_GENRE_ID), genres.getValue().getQueryObject());
+        verify(authorOperations).upsert(any(Query.class), any(Update.class));
+        Author stagedAuthor = repeated.getAuthors().iterator().next();
+        assertNotNull(stagedAuthor.getId());
+        assertEquals(stagedAuthor.getId(), annaKarenina.getAuthors().iterator().next().getId());
+
+        // the interned values shared by the readers are copied, not given the staged ids
+        assertNotSame(novel, repeated.getGenre());
+        assertNull(novel.getId());
+        assertNotSame(tolstoy, stagedAuthor);
+        assertNull(tolstoy.getId());
+    }
+
+    @Test
+    public void writerShouldDeriveTheSameIdsAfterARestart() {
+        Book firstRun = book("Anna Karenina");
+        Book restartedRun = book("Anna Karenina");
+        StagingBookWriter writer = writer(100);
+
+        writer.write(Collections.singletonList(firstRun));
+        writer.write(Collections.singletonList(book("Resurrection")));
+        writer(100).write(Collections.singletonList(restartedRun));
+
+        assertEquals(firstRun.getId(), restartedRun.getId());
+        assertEquals(firstRun.getGenre().getId(), restartedRun.getGenre().getId());
+        assertEquals(firstRun.getAuthors(), restartedRun.getAuthors());
+        assertEquals(firstRun.getAuthors().iterator().next().getId(), restartedRun.getAuthors().iterator().next().getId());
+        // the second chunk of the first writer found the genre and the author among the staged ones
+        verify(genreOperations, times(2)).execute();
+        verify(authorOperations, times(2)).execute();
+        verify(bookOperations, times(3)).execute();
+    }
+
+    @Test
+    public void writerShouldUpsertValuesAgainWhenTheyDoNotFit() {
+        StagingBookWriter writer = writer(0);
+
+        writer.write(Collections.singletonList(book("Anna Karenina")));
+        writer.write(Collections.singletonList(book("Resurrection")));
+
+        verify(genreOperations, times(2)).upsert(any(Query.class), any(Update.class));
+        verify(authorOperations, times(2)).upsert(any(Query.class), any(Update.class));
+    }
+
+    private StagingBookWriter writer(int maxEntries) {
+        return new StagingBookWriter(mongoTemplate, new StagingCollections(mongoTemplate), maxEntries);
+    }
+
+    private Book book(String name) {
+        return new Book(name, new Date(0), null, Collections.singleton(tolstoy), novel);
+    }
+}
@@ -0,0 +1,77 @@
+package otus.springfreamwork.springdatamongodb.batch;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.repeat.RepeatStatus;
+import otus.springfreamwork.springdatamongodb.com.app.batch.StagingCollections;
+import otus.springfreamwork.springdatamongodb.com.app.batch.StagingSwapTasklet;
+import otus.springfreamwork.springdatamongodb.domain.model.Author;
+import otus.springfreamwork.springdatamongodb.domain.model.Book;
+import otus.springfreamwork.springdatamongodb.domain.model.Genre;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class StagingSwapTaskletTest {
+
+    @Mock
+    private StagingCollections stagingCollections;
+
+    private StepExecution stepExecution;
+    private ChunkContext chunkContext;
+
+    @Before
+    public void init() {
+        JobExecution jobExecution = new JobExecution(new JobInstance(7L, "stagingImportBookJob"), new JobParameters());
+        stepExecution = jobExecution.createStepExecution("stagingSwapStep");
+        chunkContext = new ChunkContext(new StepContext(stepExecution));
+        when(stagingCollections.entities()).thenReturn(Arrays.asList(Genre.class, Author.class, Book.class));
+    }
+
+    @Test
+    public void taskletShouldRenameOneCollectionPerCall() {
+        when(stagingCollections.swap(any())).thenReturn(true);
+        StagingSwapTasklet tasklet = new StagingSwapTasklet(stagingCollections);
+
+        assertEquals(RepeatStatus.CONTINUABLE, tasklet.execute(stepExecution.createStepContribution(), chunkContext));
+        verify(stagingCollections).swap(Genre.class);
+        verify(stagingCollections, never()).swap(Author.class);
+        assertEquals(1, stepExecution.getExecutionContext().getInt(StagingSwapTasklet.SWAPPED));
+
+        assertEquals(RepeatStatus.CONTINUABLE, tasklet.execute(stepExecution.createStepContribution(), chunkContext));
+        assertEquals(RepeatStatus.CONTINUABLE, tasklet.execute(stepExecution.createStepContribution(), chunkContext));
+        assertEquals(RepeatStatus.FINISHED, tasklet.execute(stepExecution.createStepContribution(), chunkContext));
+        verify(stagingCollections).swap(Book.class);
+    }
+
+    @Test
+    public void restartedTaskletShouldSkipSwappedAndMissingCollections() {
+        stepExecution.getExecutionContext().putInt(StagingSwapTasklet.SWAPPED, 1);
+        when(stagingCollections.swap(Author.class)).thenReturn(false);
+        when(stagingCollections.swap(Book.class)).thenReturn(true);
+        StagingSwapTasklet tasklet = new StagingSwapTasklet(stagingCollections);
+
+        while (tasklet.execute(stepExecution.createStepContribution(), chunkContext) == RepeatStatus.CONTINUABLE) {
+        }
+
+        verify(stagingCollections, never()).swap(Genre.class);
+        verify(stagingCollections).swap(Author.class);
+        verify(stagingCollections).swap(Book.class);
+        assertEquals(3, stepExecution.getExecutionContext().getInt(StagingSwapTasklet.SWAPPED));
+    }
+}
@@ -0,0 +1,69 @@
+package otus.springfreamwork.springdatamongodb.batch;
+
+import org.junit.Test;
+import otus.springfreamwork.springdatamongodb.com.app.batch.CsvBookMapper;
+import otus.springfreamwork.springdatamongodb.com.app.batch.ValueInterner;
+import otus.springfreamwork.springdatamongodb.domain.model.Author;
+import otus.springfreamwork.springdatamongodb.domain.model.Country;
+import otus.springfreamwork.springdatamongodb.domain.model.Genre;
+
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ValueInternerTest {
+
+    private final ValueInterner valueInterner = new ValueInterner();
+
+    @Test
+    public void internerShouldShareOneInstancePerNaturalKey() {
+        CsvBookMapper csvBookMapper = new CsvBookMapper(valueInterner);
+
+        Author tolstoy = csvBookMapper.parseAuthors("Leo Tolstoy").iterator().next();
+        assertSame(tolstoy, valueInterner.author(new String("Leo"), new String("Tolstoy")));
+        assertEquals(new Author("Leo", "Tolstoy", Country.NONE), tolstoy);
+        assertNotSame(tolstoy, valueInterner.author("Leo", "Tolstoi"));
+
+        Genre novel = valueInterner.genre("novel");
+        assertSame(novel, valueInterner.genre(new String("novel")));
+        assertEquals(0, valueInterner.genreCode("novel"));
+        assertEquals(1, valueInterner.genreCode("poem"));
+        assertEquals(0, valueInterner.genreCode("novel"));
+
+        valueInterner.clear();
+        assertNotSame(tolstoy, valueInterner.author("Leo", "Tolstoy"));
+        assertEquals(0, valueInterner.genreCode("poem"));
+    }
+
+    @Test
+    public void internerShouldFindAuthorsParsedFromDifferentRows() {
+        CsvBookMapper csvBookMapper = new CsvBookMapper(valueInterner);
+        for (int i = 0; i < 2000; i++) {
+            valueInterner.author("Author" + i, "Surname" + i);
+        }
+
+        Set<Author> single = csvBookMapper.parseAuthors("Author7 Surname7");
+        assertSame(single, csvBookMapper.parseAuthors(new String("Author7 Surname7")));
+        assertSame(valueInterner.author("Author7", "Surname7"), single.iterator().next());
+
+        Set<Author> pair = csvBookMapper.parseAuthors("Author1999 Surname1999, Leo Tolstoy");
+        assertEquals(2, pair.size());
+        assertTrue(pair.contains(valueInterner.author("Author1999", "Surname1999")));
+        assertTrue(pair.contains(valueInterner.author("Leo", "Tolstoy")));
+    }
+
+    @Test
+    public void authorShouldRecomputeCachedHashAfterChange() {
+        Author author = valueInterner.author("Leo", "Tolstoy");
+        int hash = author.hashCode();
+
+        author.setSurname("Tolstoi");
+
+        assertNotEquals(hash, author.hashCode());
+        assertEquals(new Author("Leo", "Tolstoi", Country.NONE).hashCode(), author.hashCode());
+    }
+}
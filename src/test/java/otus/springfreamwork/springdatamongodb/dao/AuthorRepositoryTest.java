@@ -1,9 +1,11 @@
 package otus.springfreamwork.springdatamongodb.dao;
 
+import org.bson.types.ObjectId;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
@@ -12,8 +14,13 @@ import org.springframework.test.context.junit4.SpringRunner;
 import otus.springfreamwork.springdatamongodb.domain.dao.AuthorRepository;
 import otus.springfreamwork.springdatamongodb.domain.model.Author;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.Assert.*;
 import static org.springframework.test.annotation.DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD;
@@ -69,6 +76,26 @@ public class AuthorRepositoryTest {
         assertEquals(author, authorFromRepo.get());
     }
 
+    @Test
+    public void authorRepositoryShouldGetAuthorsByNameAndSurnamePairs() {
+        Author author = new Author("Leo", "Tolstoy", RUSSIA);
+        Author author_2 = new Author("Fyodor", "Dostoevsky", RUSSIA);
+        Author author_3 = new Author("Leo", "Dostoevsky", RUSSIA);
+
+        mongoTemplate.save(author);
+        mongoTemplate.save(author_2);
+        mongoTemplate.save(author_3);
+
+        List<Author> authors = authorRepository.findAllByNameAndSurnameIn(Arrays.asList(
+                new Author("Leo", "Tolstoy", RUSSIA),
+                new Author("Fyodor", "Dostoevsky", RUSSIA),
+                new Author("Anton", "Chekhov", RUSSIA)));
+
+        assertEquals(2, authors.size());
+        assertTrue(authors.contains(author));
+        assertTrue(authors.contains(author_2));
+    }
+
     @Test
     public void authorRepositoryShouldGetAllAuthors() {
         Author author = new Author("Leo", "Tolstoy", RUSSIA);
@@ -123,4 +150,33 @@ public class AuthorRepositoryTest {
 
         assertEquals(2, count - countBefore);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void authorRepositoryShouldReturnPagesOrderedById() {
+        Author author = new Author("Leo", "Tolstoy", RUSSIA);
+        Author author_2 = new Author("Fedor", "Dostoevsky", RUSSIA);
+        Author author_3 = new Author("Ivan", "Turgenev", RUSSIA);
+        mongoTemplate.save(author);
+        mongoTemplate.save(author_2);
+        mongoTemplate.save(author_3);
+
+        List<Author> firstPage = authorRepository.findAllByOrderByIdAsc(PageRequest.of(0, 2));
+        List<Author> secondPage = authorRepository.findByIdGreaterThanOrderByIdAsc(
+                new ObjectId(firstPage.get(1).getId()), PageRequest.of(0, 2));
+
+        assertEquals(Arrays.asList(author, author_2), firstPage);
+        assertEquals(Collections.singletonList(author_3), secondPage);
+    }
+
+    @Test
+    public void authorRepositoryShouldStreamAllAuthors() {
+        Author author = new Author("Leo", "Tolstoy", RUSSIA);
+        Author author_2 = new Author("Fedor", "Dostoevsky", RUSSIA);
+        mongoTemplate.save(author);
+        mongoTemplate.save(author_2);
+
+        try (Stream<Author> authors = authorRepository.streamAllBy()) {
+            assertEquals(new HashSet<>(Arrays.asList(author, author_2)), authors.collect(Collectors.toSet()));
+        }
+    }
+}
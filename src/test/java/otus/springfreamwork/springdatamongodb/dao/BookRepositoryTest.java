@@ -15,11 +15,16 @@ import otus.springfreamwork.springdatamongodb.domain.model.Author;
 import otus.springfreamwork.springdatamongodb.domain.model.Book;
 import otus.springfreamwork.springdatamongodb.domain.model.Genre;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.Assert.*;
 import static org.springframework.test.annotation.DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD;
@@ -196,4 +201,128 @@ public class BookRepositoryTest {
 
         assertTrue(books.contains(book));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void bookRepositoryShouldResolveSharedReferencesOnce() {
+        Map<Integer, String> parts = Collections.singletonMap(1, "partOne");
+        Author author = new Author("Leo", "Tolstoy", RUSSIA);
+        Genre genre = new Genre("novel");
+        Book book = new Book("War And Piece", new Date(), parts, Collections.singleton(author), genre);
+        Book book_2 = new Book("Anna Karenina", new Date(), parts, Collections.singleton(author), genre);
+
+        mongoTemplate.save(author);
+        mongoTemplate.save(genre);
+        mongoTemplate.save(book);
+        mongoTemplate.save(book_2);
+
+        List<Book> books = bookRepository.getByGenreId(new ObjectId(genre.getId()));
+
+        assertEquals(2, books.size());
+        assertSame(books.get(0).getGenre(), books.get(1).getGenre());
+        assertSame(books.get(0).getAuthors().iterator().next(), books.get(1).getAuthors().iterator().next());
+        assertEquals(author, books.get(0).getAuthors().iterator().next());
+    }
+
+    @Test
+    public void bookRepositoryShouldReturnPagesOrderedByName() {
+        Map<Integer, String> parts = Collections.singletonMap(1, "partOne");
+        Author author = new Author("Leo", "Tolstoy", RUSSIA);
+        Genre genre = new Genre("novel");
+        Book book = new Book("War And Piece", new Date(), parts, Collections.singleton(author), genre);
+        Book book_2 = new Book("Anna Karenina", new Date(), parts, Collections.singleton(author), genre);
+        Book book_3 = new Book("Resurrection", new Date(), parts, Collections.singleton(author), genre);
+
+        mongoTemplate.save(author);
+        mongoTemplate.save(genre);
+        mongoTemplate.save(book);
+        mongoTemplate.save(book_2);
+        mongoTemplate.save(book_3);
+
+        List<Book> firstPage = bookRepository.findPageAfterName(null, 2);
+        List<Book> secondPage = bookRepository.findPageAfterName(firstPage.get(1).getName(), 2);
+
+        assertEquals(Arrays.asList(book_2, book_3), firstPage);
+        assertEquals(Collections.singletonList(book), secondPage);
+    }
+
+    @Test
+    public void bookRepositoryShouldStreamAllBooks() {
+        Map<Integer, String> parts = Collections.singletonMap(1, "partOne");
+        Author author = new Author("Leo", "Tolstoy", RUSSIA);
+        Genre genre = new Genre("novel");
+        Book book = new Book("War And Piece", new Date(), parts, Collections.singleton(author), genre);
+        Book book_2 = new Book("Anna Karenina", new Date(), parts, Collections.singleton(author), genre);
+
+        mongoTemplate.save(author);
+        mongoTemplate.save(genre);
+        mongoTemplate.save(book);
+        mongoTemplate.save(book_2);
+
+        try (Stream<Book> books = bookRepository.streamAllBy()) {
+            assertEquals(new HashSet<>(Arrays.asList(book, book_2)), books.collect(Collectors.toSet()));
+        }
+    }
+
+    @Test
+    public void bookRepositoryShouldFindBooksOfAuthorByNameAndSurname() {
+        Map<Integer, String> parts = Collections.singletonMap(1, "partOne");
+        Author author = new Author("Leo", "Tolstoy", RUSSIA);
+        Author author_2 = new Author("Fedor", "Dostoevsky", RUSSIA);
+        Genre genre = new Genre("novel");
+        Book book = new Book("War And Piece", new Date(), parts, Collections.singleton(author), genre);
+        Book book_2 = new Book("Idiot", new Date(), parts, Collections.singleton(author_2), genre);
+
+        mongoTemplate.save(author);
+        mongoTemplate.save(author_2);
+        mongoTemplate.save(genre);
+        mongoTemplate.save(new Genre("poem"));
+        mongoTemplate.save(book);
+        mongoTemplate.save(book_2);
+
+        Optional<List<Book>> books = bookRepository.findBooksOfAuthor("Leo", "Tolstoy");
+
+        assertTrue(books.isPresent());
+        assertEquals(Collections.singletonList(book), books.get());
+        assertFalse(bookRepository.findBooksOfAuthor("Ivan", "Turgenev").isPresent());
+        assertEquals(Optional.of(Collections.emptyList()), bookRepository.findBooksOfGenre("poem"));
+    }
+
+    @Test
+    public void bookRepositoryShouldFindEveryBookOfLargeGenre() {
+        Author author = new Author("Leo", "Tolstoy", RUSSIA);
+        Genre genre = new Genre("novel");
+        mongoTemplate.save(author);
+        mongoTemplate.save(genre);
+        List<Book> saved = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            saved.add(new Book("Book " + i, new Date(0), null, Collections.singleton(author), genre));
+        }
+        mongoTemplate.insertAll(saved);
+
+        Optional<List<Book>> books = bookRepository.findBooksOfGenre("novel");
+
+        assertTrue(books.isPresent());
+        assertEquals(new HashSet<>(saved), new HashSet<>(books.get()));
+        assertEquals(saved.size(), books.get().size());
+    }
+
+    @Test
+    public void bookRepositoryShouldFindAllBooksAcrossReadBatches() {
+        Author author = new Author("Leo", "Tolstoy", RUSSIA);
+        Author author_2 = new Author("Fedor", "Dostoevsky", RUSSIA);
+        Genre genre = new Genre("novel");
+        mongoTemplate.save(author);
+        mongoTemplate.save(author_2);
+        mongoTemplate.save(genre);
+        List<Book> saved = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            saved.add(new Book("Book " + i, new Date(0), null, new HashSet<>(Arrays.asList(author, author_2)), genre));
+        }
+        mongoTemplate.insertAll(saved);
+
+        List<Book> books = bookRepository.findAll();
+
+        assertEquals(saved.size(), books.size());
+        assertEquals(new HashSet<>(saved), new HashSet<>(books));
+    }
+}
@@ -16,8 +16,10 @@ import otus.springfreamwork.springdatamongodb.domain.model.Book;
 import otus.springfreamwork.springdatamongodb.domain.model.Comment;
 import otus.springfreamwork.springdatamongodb.domain.model.Genre;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -154,4 +156,33 @@ public class CommentRepositoryTest {
         assertFalse(comments.isEmpty());
         assertTrue(comments.contains(comment));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void commentRepositoryShouldFindCommentsOnBookByName() {
+        Author author = new Author("Leo", "Tolstoy", RUSSIA);
+        Genre genre = new Genre("novel");
+        Map<Integer, String> parts = Collections.singletonMap(1, "partOne");
+        Book book = new Book("War And Piece", new Date(), parts, Collections.singleton(author), genre);
+        Book book_2 = new Book("Anna Karenina", new Date(0), parts, Collections.singleton(author), genre);
+
+        mongoTemplate.save(author);
+        mongoTemplate.save(genre);
+        mongoTemplate.save(book);
+        mongoTemplate.save(book_2);
+
+        Comment comment = new Comment("user", "so good");
+        comment.setBooks(new HashSet<>(Arrays.asList(book, book_2)));
+        Comment comment_2 = new Comment("user", "not bad");
+        comment_2.setBooks(Collections.singleton(book_2));
+        mongoTemplate.save(comment);
+        mongoTemplate.save(comment_2);
+
+        Optional<List<Comment>> comments = commentRepository.findCommentsOnBook(book.getName());
+
+        assertTrue(comments.isPresent());
+        assertEquals(Collections.singletonList(comment), comments.get());
+        assertFalse(commentRepository.findCommentsOnBook("Idiot").isPresent());
+        mongoTemplate.save(new Book("Resurrection", new Date(0), parts, Collections.singleton(author), genre));
+        assertEquals(Optional.of(Collections.emptyList()), commentRepository.findCommentsOnBook("Resurrection"));
+    }
+}
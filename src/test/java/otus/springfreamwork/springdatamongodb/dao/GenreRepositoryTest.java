@@ -12,6 +12,7 @@ import org.springframework.test.context.junit4.SpringRunner;
 import otus.springfreamwork.springdatamongodb.domain.dao.GenreRepository;
 import otus.springfreamwork.springdatamongodb.domain.model.Genre;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
@@ -66,6 +67,20 @@ public class GenreRepositoryTest {
         assertEquals(genre, genreFromRepository.get());
     }
 
+    @Test
+    public void genreRepositoryShouldGetGenresByNames() {
+        Genre genre = new Genre("fantasy");
+        Genre genre_2 = new Genre("novel");
+
+        mongoTemplate.save(genre);
+        mongoTemplate.save(genre_2);
+
+        List<Genre> genres = genreRepository.findAllByNameIn(Arrays.asList("fantasy", "detective"));
+
+        assertEquals(1, genres.size());
+        assertTrue(genres.contains(genre));
+    }
+
     @Test
     public void genreRepositoryShouldGetAllGenres() {
         Genre genre = new Genre("fantasy");
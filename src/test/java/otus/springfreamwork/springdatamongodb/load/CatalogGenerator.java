@@ -0,0 +1,140 @@
+package otus.springfreamwork.springdatamongodb.load;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Random;
+
+public class CatalogGenerator {
+
+    private static final String[] FIRST_NAMES = {"Лев", "Фёдор", "Anton", "John Ronald", "Joanne", "Ivan", "Mary", "Arthur Conan", "Агата"};
+    private static final int MAX_AUTHORS_PER_BOOK = 3;
+
+    private final long rows;
+    private final int authors;
+    private final int genres;
+    private final double multiAuthorRatio;
+    private final double skew;
+    private final long seed;
+
+    public CatalogGenerator(long rows, int authors, int genres, double multiAuthorRatio, double skew, long seed) {
+        if (authors < MAX_AUTHORS_PER_BOOK || genres < 1) {
+            throw new IllegalArgumentException("At least " + MAX_AUTHORS_PER_BOOK + " authors and one genre are required");
+        }
+        this.rows = rows;
+        this.authors = authors;
+        this.genres = genres;
+        this.multiAuthorRatio = multiAuthorRatio;
+        this.skew = skew;
+        this.seed = seed;
+    }
+
+    public static CatalogGenerator fromSystemProperties() {
+        return new CatalogGenerator(
+                Long.getLong("load.rows", 100_000),
+                Integer.getInteger("load.authors", 10_000),
+                Integer.getInteger("load.genres", 50),
+                Double.parseDouble(System.getProperty("load.multi-author-ratio", "0.2")),
+                Double.parseDouble(System.getProperty("load.skew", "1.0")),
+                Long.getLong("load.seed", 42)
+        );
+    }
+
+    // usage: CatalogGenerator <file>, the shape of the catalog is taken from the load.* system properties
+    public static void main(String[] args) throws IOException {
+        fromSystemProperties().write(Paths.get(args.length > 0 ? args[0] : "data.csv"));
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public int getAuthors() {
+        return authors;
+    }
+
+    public int getGenres() {
+        return genres;
+    }
+
+    public void write(Path file) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        Random random = new Random(seed);
+        ZipfSampler authorSampler = new ZipfSampler(authors, skew);
+        ZipfSampler genreSampler = new ZipfSampler(genres, skew);
+        int[] bookAuthors = new int[MAX_AUTHORS_PER_BOOK];
+        StringBuilder row = new StringBuilder(128);
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (long book = 0; book < rows; book++) {
+                row.setLength(0);
+                row.append("Book ").append(book).append(';');
+                appendDate(row, random);
+                row.append(';');
+                int authorCount = random.nextDouble() < multiAuthorRatio ? 2 + random.nextInt(MAX_AUTHORS_PER_BOOK - 1) : 1;
+                for (int i = 0; i < authorCount; i++) {
+                    bookAuthors[i] = distinctAuthor(authorSampler, random, bookAuthors, i);
+                    if (i > 0) {
+                        row.append(',');
+                    }
+                    appendAuthor(row, bookAuthors[i]);
+                }
+                row.append(";Genre ").append(genreSampler.next(random)).append('\n');
+                writer.append(row);
+            }
+        }
+    }
+
+    private int distinctAuthor(ZipfSampler sampler, Random random, int[] chosen, int count) {
+        while (true) {
+            int author = sampler.next(random);
+            boolean duplicate = false;
+            for (int i = 0; i < count; i++) {
+                duplicate |= chosen[i] == author;
+            }
+            if (!duplicate) {
+                return author;
+            }
+        }
+    }
+
+    private void appendAuthor(StringBuilder row, int author) {
+        row.append(FIRST_NAMES[author % FIRST_NAMES.length]).append(" Surname").append(author);
+    }
+
+    private void appendDate(StringBuilder row, Random random) {
+        int month = 1 + random.nextInt(12);
+        int day = 1 + random.nextInt(28);
+        row.append(1800 + random.nextInt(218)).append('-');
+        row.append(month < 10 ? "0" : "").append(month).append('-');
+        row.append(day < 10 ? "0" : "").append(day);
+    }
+
+    // rank k is drawn with probability proportional to 1 / k^skew, skew 0 gives a uniform distribution
+    private static class ZipfSampler {
+
+        private final double[] cumulative;
+
+        ZipfSampler(int size, double skew) {
+            cumulative = new double[size];
+            double sum = 0;
+            for (int i = 0; i < size; i++) {
+                sum += 1 / Math.pow(i + 1, skew);
+                cumulative[i] = sum;
+            }
+            for (int i = 0; i < size; i++) {
+                cumulative[i] /= sum;
+            }
+        }
+
+        int next(Random random) {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble());
+            return Math.min(index >= 0 ? index : -index - 1, cumulative.length - 1);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package otus.springfreamwork.springdatamongodb.load;
+
+import com.mongodb.MongoClientOptions;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "import.input=" + ImportBookJobLoadTest.INPUT)
+public class ImportBookJobLoadTest {
+
+    static final String INPUT = "target/load-test/data.csv";
+
+    private static final String BASELINE_RESOURCE = "/load-test-baseline.properties";
+    private static final Path BASELINE_SOURCE = Paths.get("src/test/resources/load-test-baseline.properties");
+
+    private static final Logger logger = LoggerFactory.getLogger("LoadTest");
+
+    private static CatalogGenerator generator;
+
+    @Autowired
+    private JobLauncher jobLauncher;
+
+    @Autowired
+    @Qualifier("importBookJob")
+    private Job importBookJob;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MongoCommandCounter mongoCommandCounter;
+
+    @TestConfiguration
+    static class MongoCommandCounting {
+
+        @Bean
+        public MongoCommandCounter mongoCommandCounter() {
+            return new MongoCommandCounter();
+        }
+
+        @Bean
+        public MongoClientOptions mongoClientOptions(MongoCommandCounter mongoCommandCounter) {
+            return MongoClientOptions.builder().addCommandListener(mongoCommandCounter).build();
+        }
+    }
+
+    @BeforeClass
+    public static void generateCatalog() throws IOException {
+        generator = CatalogGenerator.fromSystemProperties();
+        long start = System.nanoTime();
+        generator.write(Paths.get(INPUT));
+        logger.info("Сгенерировано {} строк за {} мс", generator.getRows(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @Test
+    public void importBookJobShouldKeepThroughputAboveBaseline() throws Exception {
+        List<MemoryPoolMXBean> heapPools = heapPools();
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+        mongoCommandCounter.reset();
+
+        JobExecution jobExecution = jobLauncher.run(importBookJob, new JobParametersBuilder()
+                .addLong("time", System.currentTimeMillis())
+                .toJobParameters());
+
+        assertEquals(BatchStatus.COMPLETED, jobExecution.getStatus());
+        assertEquals(generator.getRows(), mongoTemplate.getCollection("book").count());
+
+        Properties results = new Properties();
+        results.setProperty("rows", String.valueOf(generator.getRows()));
+        for (StepExecution stepExecution : jobExecution.getStepExecutions()) {
+            long millis = Math.max(1, stepExecution.getEndTime().getTime() - stepExecution.getStartTime().getTime());
+            long rowsPerSecond = stepExecution.getReadCount() * 1000L / millis;
+            results.setProperty(stepExecution.getStepName() + ".rows-per-second", String.valueOf(rowsPerSecond));
+            logger.info("Шаг {}: {} строк за {} мс, {} строк/с", stepExecution.getStepName(),
+                    stepExecution.getReadCount(), millis, rowsPerSecond);
+        }
+        long peakHeap = heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+        logger.info("Пиковое использование heap: {} МБ", peakHeap / (1024 * 1024));
+        logger.info("Команды MongoDB: {}", mongoCommandCounter.snapshot());
+
+        if (Boolean.getBoolean("load.update-baseline")) {
+            try (OutputStream out = Files.newOutputStream(BASELINE_SOURCE)) {
+                results.store(out, "rows per second of importBookJob steps, written by -Dload.update-baseline=true");
+            }
+            return;
+        }
+        assertAboveBaseline(results);
+    }
+
+    private void assertAboveBaseline(Properties results) throws IOException {
+        Properties baseline = new Properties();
+        try (InputStream in = getClass().getResourceAsStream(BASELINE_RESOURCE)) {
+            if (in == null) {
+                logger.warn("Нет базовой линии {}, сравнение пропущено", BASELINE_RESOURCE);
+                return;
+            }
+            baseline.load(in);
+        }
+        if (!baseline.getProperty("rows").equals(results.getProperty("rows"))) {
+            logger.warn("Базовая линия снята на {} строках, сравнение пропущено", baseline.getProperty("rows"));
+            return;
+        }
+        double tolerance = Double.parseDouble(System.getProperty("load.tolerance", "0.2"));
+        for (String key : baseline.stringPropertyNames()) {
+            if (!key.endsWith(".rows-per-second") || results.getProperty(key) == null) {
+                continue;
+            }
+            long expected = Long.parseLong(baseline.getProperty(key));
+            long actual = Long.parseLong(results.getProperty(key));
+            assertTrue(key + ": " + actual + " rows/s is below the baseline " + expected + " rows/s",
+                    actual >= expected * (1 - tolerance));
+        }
+    }
+
+    private static List<MemoryPoolMXBean> heapPools() {
+        List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                heapPools.add(pool);
+            }
+        }
+        return heapPools;
+    }
+}
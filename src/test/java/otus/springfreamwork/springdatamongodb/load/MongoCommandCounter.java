@@ -0,0 +1,39 @@
+package otus.springfreamwork.springdatamongodb.load;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+public class MongoCommandCounter implements CommandListener {
+
+    private final Map<String, LongAdder> commands = new ConcurrentHashMap<>();
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        commands.computeIfAbsent(event.getCommandName(), name -> new LongAdder()).increment();
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+    }
+
+    public void reset() {
+        commands.clear();
+    }
+
+    public Map<String, Long> snapshot() {
+        Map<String, Long> snapshot = new TreeMap<>();
+        commands.forEach((name, count) -> snapshot.put(name, count.sum()));
+        return snapshot;
+    }
+}
@@ -1,15 +1,19 @@
 package otus.springfreamwork.springdatamongodb.servicies;
 
+import org.bson.types.ObjectId;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.data.domain.PageRequest;
 import otus.springfreamwork.springdatamongodb.com.app.servicies.AuthorServiceImpl;
+import otus.springfreamwork.springdatamongodb.com.app.servicies.LookupCaches;
 import otus.springfreamwork.springdatamongodb.domain.app.services.AuthorService;
 import otus.springfreamwork.springdatamongodb.domain.dao.AuthorRepository;
 import otus.springfreamwork.springdatamongodb.domain.model.Author;
 
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -145,4 +149,35 @@ public class AuthorServiceTest {
         verify(authorRepository, times(1)).findByNameAndSurname(eq(name), eq(surname));
         verify(authorRepository, times(1)).deleteByNameAndSurname(eq(name), eq(surname));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void authorServiceShouldReturnPageWithNextPageToken() {
+        Author author = new Author("5b8f0c6e1c9d440000a1b2c3", "Leo", "Tolstoy", RUSSIA);
+        Author author_2 = new Author("5b8f0c6e1c9d440000a1b2c4", "Fedor", "Dostoevsky", RUSSIA);
+        when(authorRepository.findByIdGreaterThanOrderByIdAsc(eq(new ObjectId("5b8f0c6e1c9d440000a1b2c2")), eq(PageRequest.of(0, 2))))
+                .thenReturn(Arrays.asList(author, author_2));
+        String expected = "Страница авторов:\n" + author + "\n" + author_2 + "\nСледующая страница: " + author_2.getId();
+
+        String result = authorService.getAuthorsPage("5b8f0c6e1c9d440000a1b2c2", 2);
+
+        assertEquals(expected, result);
+    }
+
+    @Test
+    public void authorServiceShouldCacheLookupsUntilAuthorIsCreated() {
+        authorService = new AuthorServiceImpl(authorRepository, new LookupCaches(100, Duration.ofMinutes(5)));
+        String name = "Leo";
+        String surname = "Tolstoy";
+        Author author = new Author(name, surname, RUSSIA);
+        when(authorRepository.findByNameAndSurname(eq(name), eq(surname))).thenReturn(Optional.empty());
+
+        assertEquals("Не найдено автора в базе", authorService.getAuthor(name, surname));
+        assertEquals("Автор успешно создан", authorService.createAuthorByNameAndSurname(name, surname));
+        verify(authorRepository, times(1)).findByNameAndSurname(eq(name), eq(surname));
+
+        when(authorRepository.findByNameAndSurname(eq(name), eq(surname))).thenReturn(Optional.of(author));
+        assertEquals("Найден автор: " + author, authorService.getAuthor(name, surname));
+        assertEquals("Найден автор: " + author, authorService.getAuthor(name, surname));
+        verify(authorRepository, times(2)).findByNameAndSurname(eq(name), eq(surname));
+    }
+}
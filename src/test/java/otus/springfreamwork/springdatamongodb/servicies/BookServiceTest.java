@@ -233,41 +233,40 @@ public class BookServiceTest {
         Genre genre = new Genre("novel");
         Map<Integer, String> parts = Collections.singletonMap(1, "partOne");
         Book book = new Book("War And Piece", new Date(2018, 4, 10), parts, Collections.singleton(author), genre);
-        when(authorRepository.findByNameAndSurname(eq(author.getName()), eq(author.getSurname()))).thenReturn(Optional.of(author));
-        when(bookRepository.getByAuthorId(any())).thenReturn(Collections.singletonList(book));
+        when(bookRepository.findBooksOfAuthor(eq(author.getName()), eq(author.getSurname())))
+                .thenReturn(Optional.of(Collections.singletonList(book)));
         String expected = "Список книг для автора:\n" + book;
 
         String result = bookService.getBooksByAuthorNameAndSurname(author.getName(), author.getSurname());
 
         assertEquals(expected, result);
-        verify(authorRepository, times(1)).findByNameAndSurname(eq(author.getName()), eq(author.getSurname()));
-        verify(bookRepository, times(1)).getByAuthorId(eq(new ObjectId(author.getId())));
+        verify(bookRepository, times(1)).findBooksOfAuthor(eq(author.getName()), eq(author.getSurname()));
+        verify(authorRepository, never()).findByNameAndSurname(anyString(), anyString());
     }
 
     @Test
     public void bookRepositoryShouldReturnOnAuthorNameAndSurnameEmptyListWarning() {
         Author author = new Author(getRandomHexString(), "Leo", "Tolstoy", RUSSIA);
-        when(authorRepository.findByNameAndSurname(eq(author.getName()), eq(author.getSurname()))).thenReturn(Optional.of(author));
-        when(bookRepository.getByAuthorId(any())).thenReturn(Collections.emptyList());
+        when(bookRepository.findBooksOfAuthor(eq(author.getName()), eq(author.getSurname())))
+                .thenReturn(Optional.of(Collections.emptyList()));
         String expected = "Список книг для выбранного автора пуст";
 
         String result = bookService.getBooksByAuthorNameAndSurname(author.getName(), author.getSurname());
 
         assertEquals(expected, result);
-        verify(authorRepository, times(1)).findByNameAndSurname(eq(author.getName()), eq(author.getSurname()));
-        verify(bookRepository, times(1)).getByAuthorId(eq(new ObjectId(author.getId())));
+        verify(bookRepository, times(1)).findBooksOfAuthor(eq(author.getName()), eq(author.getSurname()));
+        verify(authorRepository, never()).findByNameAndSurname(anyString(), anyString());
     }
 
     @Test
     public void bookRepositoryShouldReturnOnAuthorNameAndSurnameWarningCauseNoAuthorInDB() {
-        when(authorRepository.findByNameAndSurname(anyString(), anyString())).thenReturn(Optional.empty());
+        when(bookRepository.findBooksOfAuthor(anyString(), anyString())).thenReturn(Optional.empty());
         String expected = "В базе нет такого автора";
 
         String result = bookService.getBooksByAuthorNameAndSurname("Leo", "Tolstoy");
 
         assertEquals(expected, result);
-        verify(authorRepository, times(1)).findByNameAndSurname(eq("Leo"), eq("Tolstoy"));
-        verify(bookRepository, never()).getByAuthorId(any());
+        verify(bookRepository, times(1)).findBooksOfAuthor(eq("Leo"), eq("Tolstoy"));
     }
 
     @Test
@@ -276,41 +275,38 @@ public class BookServiceTest {
         Genre genre = new Genre(getRandomHexString(), "novel");
         Map<Integer, String> parts = Collections.singletonMap(1, "partOne");
         Book book = new Book("War And Piece", new Date(2018, 4, 10), parts, Collections.singleton(author), genre);
-        when(genreRepository.findByName(eq(genre.getName()))).thenReturn(Optional.of(genre));
-        when(bookRepository.getByGenreId(any())).thenReturn(Collections.singletonList(book));
+        when(bookRepository.findBooksOfGenre(eq(genre.getName()))).thenReturn(Optional.of(Collections.singletonList(book)));
         String expected = "Список книг для жанра:\n" + book;
 
         String result = bookService.getBooksByGenreName(genre.getName());
 
         assertEquals(expected, result);
-        verify(genreRepository, times(1)).findByName(eq(genre.getName()));
-        verify(bookRepository, times(1)).getByGenreId(eq(new ObjectId(genre.getId())));
+        verify(bookRepository, times(1)).findBooksOfGenre(eq(genre.getName()));
+        verify(genreRepository, never()).findByName(anyString());
     }
 
     @Test
     public void bookRepositoryShouldReturnOnGenreNameEmptyListWarning() {
         Genre genre = new Genre(getRandomHexString(), "novel");
-        when(genreRepository.findByName(eq(genre.getName()))).thenReturn(Optional.of(genre));
-        when(bookRepository.getByGenreId(any())).thenReturn(Collections.emptyList());
+        when(bookRepository.findBooksOfGenre(eq(genre.getName()))).thenReturn(Optional.of(Collections.emptyList()));
         String expected = "Список книг для выбранного жанра пуст";
 
         String result = bookService.getBooksByGenreName(genre.getName());
 
         assertEquals(expected, result);
-        verify(genreRepository, times(1)).findByName(eq(genre.getName()));
-        verify(bookRepository, times(1)).getByGenreId(eq(new ObjectId(genre.getId())));
+        verify(bookRepository, times(1)).findBooksOfGenre(eq(genre.getName()));
+        verify(genreRepository, never()).findByName(anyString());
     }
 
     @Test
     public void bookRepositoryShouldReturnOnGenreNameWarningCauseNoAuthorInDB() {
-        when(genreRepository.findByName(eq("novel"))).thenReturn(Optional.empty());
+        when(bookRepository.findBooksOfGenre(eq("novel"))).thenReturn(Optional.empty());
         String expected = "В базе нет такого жанра";
 
         String result = bookService.getBooksByGenreName("novel");
 
         assertEquals(expected, result);
-        verify(genreRepository, times(1)).findByName(eq("novel"));
-        verify(bookRepository, never()).getByGenreId(any());
+        verify(bookRepository, times(1)).findBooksOfGenre(eq("novel"));
     }
 
     @Test
@@ -322,26 +318,25 @@ public class BookServiceTest {
         book.setId(getRandomHexString());
         Comment comment = new Comment("user", "so good");
         comment.setBooks(Collections.singleton(book));
-        when(bookRepository.findByName(anyString())).thenReturn(Optional.of(book));
-        when(commentRepository.getByBookId(any())).thenReturn(Collections.singletonList(comment));
+        when(commentRepository.findCommentsOnBook(eq(book.getName()))).thenReturn(Optional.of(Collections.singletonList(comment)));
         String expected = "Список комментариев для книги:\n" + comment;
 
         String result = bookService.getCommentsOnBook(book.getName());
 
         assertEquals(expected, result);
-        verify(commentRepository, times(1)).getByBookId(eq(new ObjectId(book.getId())));
+        verify(commentRepository, times(1)).findCommentsOnBook(eq(book.getName()));
+        verify(bookRepository, never()).findByName(anyString());
     }
 
     @Test
     public void bookRepositoryShouldReturnMessageOfNoCommentsOnBook() {
-        when(bookRepository.findByName(anyString())).thenReturn(Optional.empty());
+        when(commentRepository.findCommentsOnBook(anyString())).thenReturn(Optional.empty());
         String expected = "Нет комментариев на книгу";
 
         String result = bookService.getCommentsOnBook("War And Piece");
 
         assertEquals(expected, result);
-        verify(bookRepository, times(1)).findByName(anyString());
-        verify(commentRepository, never()).getByBookId(any());
+        verify(commentRepository, times(1)).findCommentsOnBook(eq("War And Piece"));
     }
 
     private String getRandomHexString(){
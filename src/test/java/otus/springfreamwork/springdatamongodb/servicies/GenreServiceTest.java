@@ -10,10 +10,12 @@ import otus.springfreamwork.springdatamongodb.domain.app.services.GenreService;
 import otus.springfreamwork.springdatamongodb.domain.dao.GenreRepository;
 import otus.springfreamwork.springdatamongodb.domain.model.Genre;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.junit.Assert.assertEquals;
 import static org.mockito.ArgumentMatchers.eq;
@@ -141,4 +143,16 @@ public class GenreServiceTest {
         verify(genreRepository, times(1)).deleteByName(eq(name));
     }
 
+
+    @Test
+    public void genreServiceShouldStreamAllGenres() {
+        Genre genre = new Genre("fantasy");
+        Genre genre_2 = new Genre("novel");
+        when(genreRepository.streamAllBy()).thenReturn(Stream.of(genre, genre_2));
+        List<String> output = new ArrayList<>();
+
+        genreService.streamAllGenres(output::add);
+
+        assertEquals(Arrays.asList("Список жанров:", genre.toString(), genre_2.toString()), output);
+    }
 }
@@ -0,0 +1,66 @@
+package otus.springfreamwork.springdatamongodb.servicies;
+
+import org.junit.Test;
+import otus.springfreamwork.springdatamongodb.com.app.servicies.LookupCache;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+
+public class LookupCacheTest {
+
+    private final AtomicLong nanoTime = new AtomicLong();
+    private final AtomicInteger loads = new AtomicInteger();
+    private final LookupCache<String, String> cache = new LookupCache<>(2, Duration.ofSeconds(10), nanoTime::get);
+
+    @Test
+    public void cacheShouldKeepMissesAndValuesUntilTheyExpire() {
+        assertEquals(Optional.empty(), cache.get("missing", this::load));
+        assertEquals(Optional.empty(), cache.get("missing", this::load));
+        assertEquals(Optional.of("value"), cache.get("value", this::load));
+        assertEquals(Optional.of("value"), cache.get("value", this::load));
+        assertEquals(2, loads.get());
+
+        nanoTime.addAndGet(Duration.ofSeconds(10).toNanos());
+        assertEquals(Optional.of("value"), cache.get("value", this::load));
+
+        assertEquals(3, loads.get());
+        assertEquals(2, cache.getHits());
+        assertEquals(3, cache.getMisses());
+        assertEquals(1, cache.getEvictions());
+        assertEquals(0.4, cache.getHitRatio(), 0.001);
+    }
+
+    @Test
+    public void cacheShouldEvictLeastRecentlyUsedEntry() {
+        cache.get("first", this::load);
+        cache.get("second", this::load);
+        cache.get("first", this::load);
+        cache.get("third", this::load);
+
+        cache.get("first", this::load);
+        cache.get("second", this::load);
+
+        assertEquals(4, loads.get());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void cacheShouldNotStoreValueLoadedBeforeInvalidation() {
+        cache.get("value", key -> {
+            cache.invalidate(key);
+            return load(key);
+        });
+        cache.get("value", this::load);
+
+        assertEquals(2, loads.get());
+    }
+
+    private Optional<String> load(String key) {
+        loads.incrementAndGet();
+        return key.equals("missing") ? Optional.empty() : Optional.of(key);
+    }
+}